@@ -0,0 +1,64 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.hash.FastStribog256;
+import vuz.elgamal.hash.Stribog256Batch;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes per second of many small messages: a fresh engine per message and one engine for the batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchHashBenchmark {
+
+    private static final int MESSAGES = 1024;
+
+    @Param({"32", "256", "1024"})
+    public int size;
+
+    private final byte[][] messages = new byte[MESSAGES][];
+    private final Stribog256Batch batch = new Stribog256Batch();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(size);
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = new byte[size];
+            random.nextBytes(messages[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[][] oneByOne() {
+        byte[][] hashes = new byte[MESSAGES][];
+        for (int i = 0; i < MESSAGES; i++) {
+            hashes[i] = new FastStribog256().getHash(messages[i]);
+        }
+        return hashes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[][] batch() {
+        return batch.digest(messages);
+    }
+}
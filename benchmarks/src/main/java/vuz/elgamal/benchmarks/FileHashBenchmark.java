@@ -0,0 +1,78 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.hash.ReadAheadHasher;
+import vuz.elgamal.hash.Stribog256Digest;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash of a file walked backwards through mapped memory and with read-ahead buffers.
+ * The file stays in the page cache, for cold reads drop the cache between iterations or pass a file
+ * on the disk in question with -p file=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileHashBenchmark {
+
+    private static final int SIZE = 256 * 1024 * 1024;
+
+    @Param({""})
+    public String file;
+
+    private Path path;
+    private FileChannel channel;
+    private final ReadAheadHasher readAheadHasher = new ReadAheadHasher();
+
+    @Setup
+    public void setup() throws IOException {
+        if (file.isEmpty()) {
+            byte[] data = new byte[SIZE];
+            new Random(1).nextBytes(data);
+            path = Files.write(Files.createTempFile("hash", ".bin"), data);
+        } else {
+            path = Path.of(file);
+        }
+        channel = FileChannel.open(path);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close();
+        if (file.isEmpty()) {
+            Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public byte[] mapped() throws IOException {
+        Stribog256Digest digest = new Stribog256Digest();
+        digest.update(channel, 0, channel.size());
+        return digest.digest();
+    }
+
+    @Benchmark
+    public byte[] readAhead() throws IOException {
+        return readAheadHasher.hash(channel, 0, channel.size());
+    }
+}
@@ -0,0 +1,66 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.math.FixedBaseExp;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * g^e mod p: plain {@link BigInteger#modPow} against {@link FixedBaseExp} tables of different size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixedBaseExpBenchmark {
+
+    private static final int EXPONENTS = 64;
+
+    @Param({"512", "1024", "2048"})
+    public int bits;
+
+    @Param({"1048576", "4194304", "16777216"})
+    public long tableBytes;
+
+    private BigInteger p;
+    private BigInteger g;
+    private BigInteger[] exponents;
+    private FixedBaseExp powers;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(bits);
+        p = BigInteger.probablePrime(bits, random);
+        g = new BigInteger(bits - 1, random);
+        exponents = new BigInteger[EXPONENTS];
+        for (int i = 0; i < EXPONENTS; i++) {
+            exponents[i] = new BigInteger(bits - 1, random);
+        }
+        powers = FixedBaseExp.withMemory(g, p, bits, tableBytes);
+    }
+
+    @Benchmark
+    public BigInteger modPow() {
+        return g.modPow(exponents[next++ & (EXPONENTS - 1)], p);
+    }
+
+    @Benchmark
+    public BigInteger fixedBase() {
+        return powers.pow(exponents[next++ & (EXPONENTS - 1)]);
+    }
+}
@@ -0,0 +1,61 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.hash.FastStribog256;
+import vuz.elgamal.hash.Stribog256Digest;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stribog256 throughput from one block to 64 MB. Besides hashes per second JMH reports bytes, hashed bytes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashBenchmark {
+
+    @Param({"64", "1024", "65536", "1048576", "67108864"})
+    public int size;
+
+    private byte[] message;
+    private final FastStribog256 fast = new FastStribog256();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() {
+        message = new byte[size];
+        new Random(size).nextBytes(message);
+    }
+
+    @Benchmark
+    public byte[] fastStribog256(Counters counters) {
+        counters.bytes += size;
+        return fast.getHash(message);
+    }
+
+    @Benchmark
+    public byte[] digest(Counters counters) {
+        counters.bytes += size;
+        return new Stribog256Digest().digest(message);
+    }
+}
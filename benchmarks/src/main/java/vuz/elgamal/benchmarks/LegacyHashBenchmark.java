@@ -0,0 +1,55 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.hash.Stribog256;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference {@link Stribog256}, the baseline for {@link HashBenchmark}. Stops at 1 MB, larger sizes take minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class LegacyHashBenchmark {
+
+    @Param({"64", "1024", "65536", "1048576"})
+    public int size;
+
+    private byte[] message;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() {
+        message = new byte[size];
+        new Random(size).nextBytes(message);
+    }
+
+    @Benchmark
+    public byte[] stribog256(Counters counters) {
+        Stribog256 stribog = new Stribog256();
+        stribog.fillBuffer(message);
+        counters.bytes += size;
+        return stribog.getHash();
+    }
+}
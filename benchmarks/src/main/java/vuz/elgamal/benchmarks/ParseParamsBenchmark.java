@@ -0,0 +1,66 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.Params;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.utils.BinaryUtils;
+import vuz.elgamal.utils.ParamsContainer;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a public key file, legacy deadbeef format against {@link ParamsContainer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseParamsBenchmark {
+
+    @Param({"512", "2048"})
+    public int bits;
+
+    private byte[] legacy;
+    private byte[] container;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(bits);
+        BigInteger p = new BigInteger(bits, random);
+        BigInteger g = new BigInteger(bits, random);
+        BigInteger y = new BigInteger(bits, random);
+
+        legacy = BinaryUtils.joinByteArrays(
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(p), Params.P),
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(g), Params.G),
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(y), Params.Y)
+        );
+        container = new ParamsContainer.Writer().put(Params.P, p).put(Params.G, g).put(Params.Y, y).toByteArray();
+    }
+
+    @Benchmark
+    public Map<String, BigInteger> legacy() throws FileCorruptedOrFalsify {
+        return BinaryUtils.parseParams(legacy);
+    }
+
+    @Benchmark
+    public Map<String, BigInteger> container() throws FileCorruptedOrFalsify {
+        return ParamsContainer.read(container);
+    }
+}
@@ -0,0 +1,58 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.utils.PrimalityTest;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of confirming a prime, the work key generation spends on the winning candidate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PrimalityBenchmark {
+
+    @Param({"512", "1024", "2048"})
+    public int bits;
+
+    private BigInteger prime;
+    private final PrimalityTest fixedRounds = PrimalityTest.fixedRounds(512);
+    private final PrimalityTest fips186 = PrimalityTest.fips186();
+    private final PrimalityTest bailliePsw = PrimalityTest.bailliePsw();
+
+    @Setup
+    public void setup() {
+        prime = BigInteger.probablePrime(bits, new Random(bits));
+    }
+
+    @Benchmark
+    public boolean fixedRounds() {
+        return fixedRounds.isPrime(prime);
+    }
+
+    @Benchmark
+    public boolean fips186() {
+        return fips186.isPrime(prime);
+    }
+
+    @Benchmark
+    public boolean bailliePsw() {
+        return bailliePsw.isPrime(prime);
+    }
+}
@@ -0,0 +1,50 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.utils.PrimalityTest;
+import vuz.elgamal.utils.SafePrimeSearch;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Safe prime search on all cores. Besides primes per second JMH reports candidates, odd q looked at per second,
+ * and tested, sieve survivors that went to modPow per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SafePrimeBenchmark {
+
+    @Param({"512", "1024", "2048"})
+    public int bits;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long candidates;
+        public long tested;
+    }
+
+    @Benchmark
+    public BigInteger search(Counters counters) throws InterruptedException {
+        SafePrimeSearch search = new SafePrimeSearch(bits, Runtime.getRuntime().availableProcessors(), PrimalityTest.fips186());
+        BigInteger p = search.search();
+        counters.candidates += search.getCandidates();
+        counters.tested += search.getTested();
+        return p;
+    }
+}
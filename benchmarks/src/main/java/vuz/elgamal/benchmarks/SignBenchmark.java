@@ -0,0 +1,100 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.keys.PrivateKey;
+import vuz.elgamal.keys.PublicKey;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signatures and verifications per second for each key size, of a digest and of a small file.
+ * Keys use a random prime instead of a safe one, that does not change the cost of signing and saves minutes of setup.
+ * Fixed-base tables are built, nonce pool is off, so every signature pays for its nonce.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignBenchmark {
+
+    private static final int FILE_SIZE = 4096;
+
+    @Param({"512", "1024", "2048"})
+    public int bits;
+
+    private final DigitalSignature digitalSignature = new DigitalSignature();
+    private PrivateKey privateKey;
+    private PublicKey publicKey;
+    private byte[] digest;
+    private byte[] signature;
+    private Path file;
+    private byte[] fileSignature;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(bits);
+        BigInteger p = BigInteger.probablePrime(bits, random);
+        BigInteger g = BigInteger.TWO;
+        BigInteger x = new BigInteger(bits - 2, random);
+        privateKey = new PrivateKey(p, g, x).precompute();
+        publicKey = new PublicKey(p, g, g.modPow(x, p)).precompute();
+
+        digest = new byte[32];
+        random.nextBytes(digest);
+        signature = digitalSignature.signDigest(digest, privateKey);
+
+        byte[] message = new byte[FILE_SIZE];
+        random.nextBytes(message);
+        file = Files.createTempFile("sign-benchmark", ".txt");
+        Files.write(file, message);
+        fileSignature = digitalSignature.createDetachedSign(file, privateKey);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public byte[] signDigest() {
+        return digitalSignature.signDigest(digest, privateKey);
+    }
+
+    @Benchmark
+    public byte[] verifyDigest() throws FileCorruptedOrFalsify {
+        digitalSignature.verifyDigest(digest, signature, publicKey);
+        return signature;
+    }
+
+    @Benchmark
+    public byte[] signFile() throws IOException {
+        return digitalSignature.createDetachedSign(file, privateKey);
+    }
+
+    @Benchmark
+    public byte[] verifyFile() throws IOException, FileCorruptedOrFalsify {
+        digitalSignature.verifyDetachedSign(file, fileSignature, publicKey);
+        return fileSignature;
+    }
+}
@@ -0,0 +1,82 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.Params;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.utils.BinaryUtils;
+import vuz.elgamal.utils.ParamsContainer;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting A and B out of a signed file already in memory:
+ * parseParams over the whole file as the original verification did, backward search in the tail of a legacy file
+ * and the container footer. The message is zeros, so it has no deadbeef and the whole-file parse succeeds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignedFileParseBenchmark {
+
+    private static final int BITS = 2048;
+
+    @Param({"1024", "1048576", "16777216"})
+    public int size;
+
+    private byte[] legacy;
+    private byte[] container;
+    private int tailLength;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(size);
+        BigInteger p = BigInteger.ONE.shiftLeft(BITS).subtract(BigInteger.ONE);
+        BigInteger a = new BigInteger(BITS - 1, random);
+        BigInteger b = new BigInteger(BITS - 1, random);
+        byte[] message = new byte[size];
+
+        legacy = BinaryUtils.joinByteArrays(message,
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(a), Params.A),
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(b), Params.B)
+        );
+        container = BinaryUtils.joinByteArrays(message, new ParamsContainer.Writer().put(Params.A, a).put(Params.B, b).toByteArray());
+        tailLength = BinaryUtils.maxSignLength(p);
+    }
+
+    @Benchmark
+    public Map<String, BigInteger> legacyWholeFile() throws FileCorruptedOrFalsify {
+        return BinaryUtils.parseParams(legacy);
+    }
+
+    @Benchmark
+    public Map<String, BigInteger> legacyTail() throws FileCorruptedOrFalsify {
+        byte[] tail = Arrays.copyOfRange(legacy, legacy.length - tailLength, legacy.length);
+        int start = BinaryUtils.lastIndexOfSign(tail);
+        return BinaryUtils.parseParams(Arrays.copyOfRange(tail, start, tail.length));
+    }
+
+    @Benchmark
+    public Map<String, BigInteger> containerTail() throws FileCorruptedOrFalsify {
+        byte[] tail = Arrays.copyOfRange(container, container.length - tailLength, container.length);
+        int start = ParamsContainer.lastIndexOf(tail);
+        return ParamsContainer.read(Arrays.copyOfRange(tail, start, tail.length));
+    }
+}
@@ -0,0 +1,75 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.hash.Stribog256Digest;
+import vuz.elgamal.hash.Stribog256Tree;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plain and tree hash of a 256 MB file (page cache) with 1 MB chunks, the tree on a pool of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TreeHashBenchmark {
+
+    private static final int SIZE = 256 * 1024 * 1024;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path file;
+    private FileChannel channel;
+    private ForkJoinPool pool;
+    private Stribog256Tree tree;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] data = new byte[SIZE];
+        new Random(1).nextBytes(data);
+        file = Files.write(Files.createTempFile("tree", ".bin"), data);
+        channel = FileChannel.open(file);
+        pool = new ForkJoinPool(threads);
+        tree = new Stribog256Tree(Stribog256Tree.DEFAULT_CHUNK_SIZE, pool);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        channel.close();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public byte[] plain() throws IOException {
+        Stribog256Digest digest = new Stribog256Digest();
+        digest.update(channel, 0, SIZE);
+        return digest.digest();
+    }
+
+    @Benchmark
+    public byte[] tree() throws IOException {
+        return tree.root(channel, SIZE);
+    }
+}
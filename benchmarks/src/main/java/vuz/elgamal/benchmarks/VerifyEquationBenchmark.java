@@ -0,0 +1,59 @@
+package vuz.elgamal.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vuz.elgamal.math.FixedBaseExp;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Right side of the verification equation y^a * a^b mod p computed with and without the fixed-base table of y.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerifyEquationBenchmark {
+
+    @Param({"512", "1024", "2048"})
+    public int bits;
+
+    private BigInteger p;
+    private BigInteger y;
+    private BigInteger a;
+    private BigInteger b;
+    private FixedBaseExp powersY;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(bits);
+        p = BigInteger.probablePrime(bits, random);
+        y = new BigInteger(bits - 1, random);
+        a = new BigInteger(bits - 1, random);
+        b = new BigInteger(bits - 1, random);
+        powersY = FixedBaseExp.withMemory(y, p, bits, FixedBaseExp.DEFAULT_MEMORY);
+    }
+
+    @Benchmark
+    public BigInteger twoModPow() {
+        return y.modPow(a, p).multiply(a.modPow(b, p)).mod(p);
+    }
+
+    @Benchmark
+    public BigInteger fixedBaseY() {
+        return powersY.pow(a).multiply(a.modPow(b, p)).mod(p);
+    }
+}
@@ -1,95 +1,717 @@
 package vuz.elgamal;
 
 import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
-import vuz.elgamal.hash.Stribog256;
+import vuz.elgamal.hash.HashAlgorithm;
+import vuz.elgamal.hash.ReadAheadHasher;
+import vuz.elgamal.hash.Stribog256Digest;
+import vuz.elgamal.hash.Stribog256Tree;
+import vuz.elgamal.keys.KeyCache;
+import vuz.elgamal.keys.Nonce;
+import vuz.elgamal.keys.PrivateKey;
+import vuz.elgamal.keys.PublicKey;
+import vuz.elgamal.metrics.Counter;
+import vuz.elgamal.metrics.Metrics;
+import vuz.elgamal.metrics.Phase;
+import vuz.elgamal.metrics.PhaseTimer;
 import vuz.elgamal.utils.BinaryUtils;
+import vuz.elgamal.utils.PrimalityTest;
+import vuz.elgamal.utils.ParamsContainer;
 import vuz.elgamal.utils.PrimeUtils;
+import vuz.elgamal.utils.SafePrimeSearch;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 
 public class DigitalSignature {
 
-    private static final int BIT_LENGTH = 512;
-    private static final int ROUNDS = 512;
+    public static final int DEFAULT_BIT_LENGTH = 512;
+    public static final int ROUNDS = 512;
     private static final String ELGAMAL_PUB = "elgamal.pub";
     private static final String ELGAMAL = "elgamal";
+    private static final String SIG_EXTENSION = ".sig";
+    private static final long READ_AHEAD_THRESHOLD = 4L * ReadAheadHasher.DEFAULT_BUFFER_SIZE;
+
+    private final int bitLength;
+    private final int threads;
+    private final PrimalityTest primalityTest;
+    private final KeyCache keyCache;
+    private final ReadAheadHasher readAheadHasher;
+
+    public DigitalSignature() {
+        this(DEFAULT_BIT_LENGTH, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param keyCache cache of parsed keys used by the methods that sign or verify with a key file name.
+     */
+    public DigitalSignature(KeyCache keyCache) {
+        this(DEFAULT_BIT_LENGTH, Runtime.getRuntime().availableProcessors(), PrimalityTest.fips186(), keyCache, null);
+    }
+
+    /**
+     * Files of 16 MB and more are read ahead on another thread while hashing instead of being mapped.
+     * It only pays off when reading is slow, the file is not cached and a second core is free to read.
+     *
+     * @param readAheadHasher hasher of large files.
+     */
+    public DigitalSignature(ReadAheadHasher readAheadHasher) {
+        this(DEFAULT_BIT_LENGTH, Runtime.getRuntime().availableProcessors(), PrimalityTest.fips186(), null, readAheadHasher);
+    }
+
+    /**
+     * @param bitLength size of p for generated keys.
+     * @param threads number of threads searching for the safe prime.
+     */
+    public DigitalSignature(int bitLength, int threads) {
+        this(bitLength, threads, PrimalityTest.fips186());
+    }
+
+    /**
+     * @param bitLength size of p for generated keys.
+     * @param threads number of threads searching for the safe prime.
+     * @param primalityTest check of safe prime candidates.
+     */
+    public DigitalSignature(int bitLength, int threads, PrimalityTest primalityTest) {
+        this(bitLength, threads, primalityTest, null, null);
+    }
+
+    private DigitalSignature(int bitLength, int threads, PrimalityTest primalityTest, KeyCache keyCache, ReadAheadHasher readAheadHasher) {
+        this.bitLength = bitLength;
+        this.threads = threads;
+        this.primalityTest = primalityTest;
+        this.keyCache = keyCache;
+        this.readAheadHasher = readAheadHasher;
+    }
 
     /**
      * Create two files in current directory:
      * 1) elgamal.pub - public key
      * 2) elgamal - private key
+     *
+     * @return true if both keys are written, false if the search was interrupted or a file could not be written.
      */
-    public void generatePublicAndPrivateKeys() {
-        BigInteger p = generateSafePrimeP();
+    public boolean generatePublicAndPrivateKeys() {
+        BigInteger p;
+        try {
+            p = generateSafePrimeP();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Key generation interrupted");
+            return false;
+        }
         BigInteger g = findGeneratorInMultiplicativeGroup(p.subtract(BigInteger.ONE));
         BigInteger x = PrimeUtils.generateBigIntegerInRange(BigInteger.ONE, p.subtract(BigInteger.ONE));
         BigInteger y = g.modPow(x, p);
-        writeKeyToFile(p, g, y, ELGAMAL_PUB);
-        writeKeyToFile(p, g, x, ELGAMAL);
+        return writeKeyToFile(p, g, y, ELGAMAL_PUB) && writeKeyToFile(p, g, x, ELGAMAL);
     }
 
     /**
-     * Adding sign to a file.
+     * Adding sign to a file: the signature is appended, the message itself is hashed from mapped memory.
      * @param fileName file to sign.
      * @param privateKey file with private key.
      */
     public void signFile(String fileName, String privateKey) throws FileCorruptedOrFalsify {
         try {
-            byte[] message = readAllFile(fileName);
-            byte[] privateKeyData = readAllFile(privateKey);
-            Map<String, BigInteger> params = BinaryUtils.parseParams(privateKeyData);
-            verifyParams(params, "Private key corrupted!","P", "G", "X");
+            withPrivateKey(privateKey, key -> signFile(Paths.get(fileName), key));
+        } catch (IOException e) {
+            reportError(e);
+        }
+    }
 
-            byte[] signedMsg = getSignedMessage(message, params.get("P"), params.get("G"), params.get("X"));
+    /**
+     * Adding sign to a file with already parsed private key.
+     * @param file file to sign.
+     * @param key private key.
+     */
+    public void signFile(Path file, PrivateKey key) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            BigInteger hashInt = BinaryUtils.convertBytesToBigInteger(getFileHash(channel, channel.size()));
+            byte[] sign = createSign(hashInt, key, new ParamsContainer.Writer());
 
-            FileOutputStream fileOutputStream = new FileOutputStream(fileName);
-            fileOutputStream.write(signedMsg);
-            fileOutputStream.close();
-        } catch (IOException e) {
-            System.err.printf("Something went wrong: %s", e.getMessage());
+            PhaseTimer start = Metrics.start();
+            ByteBuffer buffer = ByteBuffer.wrap(sign);
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            Metrics.phase(Phase.WRITE, start);
         }
     }
 
     /**
-     * Verify sign.
+     * Verify sign. The signature is found by the container footer at the end of the file,
+     * legacy signatures are searched backwards. The message is hashed from mapped memory.
      *
      * @param signedFile name of signed file.
      * @param publicKey name of file with public key.
      */
     public void verifySign(String signedFile, String publicKey) throws FileCorruptedOrFalsify {
-        byte[] data = readAllFile(signedFile);
-        byte[] keyData = readAllFile(publicKey);
-        byte[] message = BinaryUtils.parseMessage(data);
-        Map<String, BigInteger> params = BinaryUtils.parseParams(data);
+        PublicKey key = loadPublicKey(publicKey);
+
+        try {
+            verifySign(Paths.get(signedFile), key);
+        } catch (IOException e) {
+            reportError(e);
+            throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+        }
+    }
+
+    /**
+     * Verify sign with already parsed public key.
+     *
+     * @param signedFile signed file.
+     * @param key public key.
+     */
+    public void verifySign(Path signedFile, PublicKey key) throws IOException, FileCorruptedOrFalsify {
+        try (FileChannel channel = FileChannel.open(signedFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] tail = readTail(channel, (int) Math.min(size, BinaryUtils.maxSignLength(key.getP())));
+
+            int signStart = ParamsContainer.lastIndexOf(tail);
+            if (signStart == -1) {
+                signStart = BinaryUtils.lastIndexOfSign(tail);
+            }
+            if (signStart == -1) {
+                throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+            }
+            Map<String, BigInteger> params = ParamsContainer.read(Arrays.copyOfRange(tail, signStart, tail.length));
+            long messageLength = size - tail.length + signStart;
+
+            BigInteger hashInt = BinaryUtils.convertBytesToBigInteger(getFileHash(channel, messageLength));
+            checkSign(hashInt, params.get("A"), params.get("B"), key);
+        }
+    }
+
+    /**
+     * Create detached signature in fileName.sig, the file itself stays untouched.
+     * The signature is a {@link ParamsContainer} with H (hash algorithm), A and B.
+     *
+     * @param fileName file to sign.
+     * @param privateKey file with private key.
+     */
+    public void signFileDetached(String fileName, String privateKey) throws FileCorruptedOrFalsify {
+        try {
+            withPrivateKey(privateKey, key -> signFileDetached(Paths.get(fileName), key));
+        } catch (IOException e) {
+            reportError(e);
+        }
+    }
+
+    /**
+     * Create detached signature with already parsed private key.
+     *
+     * @param file file to sign.
+     * @param key private key.
+     */
+    public void signFileDetached(Path file, PrivateKey key) throws IOException {
+        writeFile(Paths.get(getSigFileName(file.toString())), createDetachedSign(file, key));
+    }
+
+    /**
+     * Detached signature of a file, in the format of .sig files, without writing anything.
+     *
+     * @param file file to sign.
+     * @param key private key.
+     * @return detached signature.
+     */
+    public byte[] createDetachedSign(Path file, PrivateKey key) throws IOException {
+        return signDigest(hashFile(file), key);
+    }
+
+    /**
+     * Create detached signature in fileName.sig over the root of a {@link Stribog256Tree}, chunks are hashed on all cores.
+     * The chunk size is stored in the signature, verification hashes the file the same way.
+     *
+     * @param fileName file to sign.
+     * @param privateKey file with private key.
+     * @param chunkSize chunk size of the tree.
+     */
+    public void signFileDetached(String fileName, String privateKey, int chunkSize) throws FileCorruptedOrFalsify {
+        signFileDetached(fileName, privateKey, chunkSize, false);
+    }
 
-        params.putAll(BinaryUtils.parseParams(keyData));
-        verifyParams(params, "File corrupted or falsify!","P", "G", "Y", "A", "B");
+    /**
+     * Create detached tree signature in fileName.sig.
+     *
+     * @param fileName file to sign.
+     * @param privateKey file with private key.
+     * @param chunkSize chunk size of the tree.
+     * @param storeNodes also store digests of all tree nodes, so byte ranges can be verified with {@link #verifyRange}.
+     */
+    public void signFileDetached(String fileName, String privateKey, int chunkSize, boolean storeNodes) throws FileCorruptedOrFalsify {
+        try {
+            withPrivateKey(privateKey, key -> {
+                Path file = Paths.get(fileName);
+                writeFile(Paths.get(getSigFileName(fileName)), createDetachedSign(file, key, new Stribog256Tree(chunkSize), storeNodes));
+            });
+        } catch (IOException e) {
+            reportError(e);
+        }
+    }
 
-        BigInteger f1 = calculateF1(message, params.get("G"), params.get("P"));
-        BigInteger f2 = calculateF2(params.get("Y"), params.get("A"), params.get("B"), params.get("P"));
-        if (!f1.equals(f2)) {
+    /**
+     * Detached signature over the root of the tree hash of a file.
+     * The signature is a {@link ParamsContainer} with H (tree hash), C (chunk size), S (message length), A and B.
+     * The signed value is {@link Stribog256Tree#signedDigest(long, byte[])}, the root bound to C and S.
+     *
+     * @param file file to sign.
+     * @param key private key.
+     * @param tree chunk size and workers of the tree hash.
+     * @return detached signature.
+     */
+    public byte[] createDetachedSign(Path file, PrivateKey key, Stribog256Tree tree) throws IOException {
+        return createDetachedSign(file, key, tree, false);
+    }
+
+    /**
+     * Detached signature over the root of the tree hash of a file, optionally with digests of all tree nodes.
+     * Stored nodes add T (node digests in pre-order, 64 bytes per chunk) to the signature.
+     *
+     * @param file file to sign.
+     * @param key private key.
+     * @param tree chunk size and workers of the tree hash.
+     * @param storeNodes store digests of all tree nodes for {@link #verifyRange}.
+     * @return detached signature.
+     */
+    public byte[] createDetachedSign(Path file, PrivateKey key, Stribog256Tree tree, boolean storeNodes) throws IOException {
+        byte[][] nodes = null;
+        byte[] root;
+        long length;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            PhaseTimer start = Metrics.start();
+            length = channel.size();
+            if (storeNodes) {
+                nodes = tree.nodes(channel, length);
+                root = nodes[0];
+            } else {
+                root = tree.root(channel, length);
+            }
+            Metrics.phase(Phase.HASH, start);
+            Metrics.count(Counter.BYTES_HASHED, length);
+        }
+
+        ParamsContainer.Writer writer = new ParamsContainer.Writer()
+            .put(Params.H, BigInteger.valueOf(HashAlgorithm.STRIBOG256_TREE.getId()))
+            .put(Params.C, BigInteger.valueOf(tree.getChunkSize()))
+            .put(Params.S, BigInteger.valueOf(length));
+        if (storeNodes) {
+            writer.put(Params.T, BinaryUtils.joinByteArrays(nodes));
+        }
+        return createSign(BinaryUtils.convertBytesToBigInteger(tree.signedDigest(length, root)), key, writer);
+    }
+
+    /**
+     * Verify a part of a file against a tree signature with stored nodes.
+     *
+     * @param fileName name of signed file.
+     * @param sigFile name of file with detached signature.
+     * @param publicKey name of file with public key.
+     * @param offset start of the range.
+     * @param length length of the range.
+     */
+    public void verifyRange(String fileName, String sigFile, String publicKey, long offset, long length) throws FileCorruptedOrFalsify {
+        PublicKey key = loadPublicKey(publicKey);
+
+        try {
+            verifyRange(Paths.get(fileName), readFile(Paths.get(sigFile)), offset, length, key);
+        } catch (IOException e) {
+            reportError(e);
             throw new FileCorruptedOrFalsify("File corrupted or falsify!");
         }
     }
 
+    /**
+     * Verify that bytes [offset, offset + length) of the file are the signed ones.
+     * Only the chunks overlapping the range are hashed, the other subtrees on the way to the root
+     * are taken from the signature, so the cost is the range plus a logarithm of the number of chunks.
+     * The rest of the file is not checked.
+     *
+     * @param file signed file.
+     * @param signature detached tree signature with stored nodes.
+     * @param offset start of the range.
+     * @param length length of the range.
+     * @param key public key.
+     * @throws IllegalArgumentException if the range is empty or outside of the signed message.
+     */
+    public void verifyRange(Path file, byte[] signature, long offset, long length, PublicKey key)
+            throws IOException, FileCorruptedOrFalsify {
+        Map<String, ByteBuffer> raw = new HashMap<>();
+        Map<String, BigInteger> params = parseDetachedSign(signature, raw);
+        Stribog256Tree tree = getTree(params);
+        ByteBuffer nodes = raw.get("T");
+        if (tree == null || nodes == null) {
+            throw new FileCorruptedOrFalsify("Signature has no tree nodes!");
+        }
+        long messageLength = getMessageLength(params);
+        checkNodes(nodes, Stribog256Tree.nodeCount(tree.chunks(messageLength)));
+
+        byte[] root;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < messageLength) {
+                throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+            }
+            PhaseTimer start = Metrics.start();
+            root = tree.root(channel, messageLength, nodes, offset, length);
+            Metrics.phase(Phase.HASH, start);
+            long chunk = tree.getChunkSize();
+            long hashedEnd = Math.min(messageLength, ((offset + length - 1) / chunk + 1) * chunk);
+            Metrics.count(Counter.BYTES_HASHED, hashedEnd - offset / chunk * chunk);
+        }
+        checkSign(BinaryUtils.convertBytesToBigInteger(tree.signedDigest(messageLength, root)), params.get("A"), params.get("B"), key);
+    }
+
+    /**
+     * Sign an already computed digest and write the detached signature to sigFile.
+     *
+     * @param digest hex Stribog256 digest of the message.
+     * @param privateKey file with private key.
+     * @param sigFile file for detached signature.
+     * @throws FileCorruptedOrFalsify if the key is corrupted or the signature could not be written.
+     */
+    public void signDigest(String digest, String privateKey, String sigFile) throws FileCorruptedOrFalsify {
+        try {
+            withPrivateKey(privateKey, key -> writeFile(Paths.get(sigFile), signDigest(BinaryUtils.hexStringToBytes(digest), key)));
+        } catch (IOException e) {
+            reportError(e);
+            throw new FileCorruptedOrFalsify("Signature was not written!");
+        }
+    }
+
+    /**
+     * Detached signature of an already computed Stribog256 digest, the message itself is not needed.
+     * The signature is the same as the one of the whole file, either can be checked by both kinds of verification.
+     *
+     * @param digest Stribog256 digest of the message, 32 bytes.
+     * @param key private key.
+     * @return detached signature in the format of .sig files.
+     * @throws IllegalArgumentException if the digest is not 32 bytes long.
+     */
+    public byte[] signDigest(byte[] digest, PrivateKey key) {
+        checkDigest(digest);
+        ParamsContainer.Writer writer = new ParamsContainer.Writer()
+            .put(Params.H, BigInteger.valueOf(HashAlgorithm.STRIBOG256.getId()));
+        return createSign(BinaryUtils.convertBytesToBigInteger(digest), key, writer);
+    }
+
+    /**
+     * Verify detached signature. Only the small .sig file is parsed, the signed file is streamed untouched.
+     *
+     * @param fileName name of signed file.
+     * @param sigFile name of file with detached signature.
+     * @param publicKey name of file with public key.
+     */
+    public void verifyDetachedSign(String fileName, String sigFile, String publicKey) throws FileCorruptedOrFalsify {
+        PublicKey key = loadPublicKey(publicKey);
+
+        try {
+            verifyDetachedSign(Paths.get(fileName), Paths.get(sigFile), key);
+        } catch (IOException e) {
+            reportError(e);
+            throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+        }
+    }
+
+    /**
+     * Verify detached signature with already parsed public key.
+     *
+     * @param file signed file.
+     * @param sigFile file with detached signature.
+     * @param key public key.
+     */
+    public void verifyDetachedSign(Path file, Path sigFile, PublicKey key) throws IOException, FileCorruptedOrFalsify {
+        verifyDetachedSign(file, readFile(sigFile), key);
+    }
+
+    /**
+     * Verify detached signature already read into memory.
+     *
+     * @param file signed file.
+     * @param signature detached signature in the format of .sig files.
+     * @param key public key.
+     */
+    public void verifyDetachedSign(Path file, byte[] signature, PublicKey key) throws IOException, FileCorruptedOrFalsify {
+        Map<String, BigInteger> params = parseDetachedSign(signature);
+        Stribog256Tree tree = getTree(params);
+        byte[] digest = tree == null ? hashFile(file) : tree.signedDigest(getMessageLength(params), hashFile(file, tree));
+        checkSign(BinaryUtils.convertBytesToBigInteger(digest), params.get("A"), params.get("B"), key);
+    }
+
+    /**
+     * Detached signature of a message held in memory, the same as the signature of a file with these bytes.
+     *
+     * @param message message to sign.
+     * @param key private key.
+     * @return detached signature.
+     */
+    public byte[] createDetachedSign(byte[] message, PrivateKey key) {
+        return signDigest(hashMessage(message), key);
+    }
+
+    /**
+     * Verify detached signature of a message held in memory.
+     *
+     * @param message signed message.
+     * @param signature detached signature in the format of .sig files.
+     * @param key public key.
+     */
+    public void verifyDetachedSign(byte[] message, byte[] signature, PublicKey key) throws FileCorruptedOrFalsify {
+        Map<String, BigInteger> params = parseDetachedSign(signature);
+        Stribog256Tree tree = getTree(params);
+        byte[] digest = tree == null ? hashMessage(message) : tree.signedDigest(message.length, tree.root(message));
+        checkSign(BinaryUtils.convertBytesToBigInteger(digest), params.get("A"), params.get("B"), key);
+    }
+
+    /**
+     * Verify detached signature against an already computed digest.
+     *
+     * @param digest hex Stribog256 digest of the message.
+     * @param sigFile name of file with detached signature.
+     * @param publicKey name of file with public key.
+     */
+    public void verifyDigest(String digest, String sigFile, String publicKey) throws FileCorruptedOrFalsify {
+        PublicKey key = loadPublicKey(publicKey);
+
+        try {
+            verifyDigest(BinaryUtils.hexStringToBytes(digest), readFile(Paths.get(sigFile)), key);
+        } catch (IOException e) {
+            reportError(e);
+            throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+        }
+    }
+
+    /**
+     * Verify detached signature against an already computed Stribog256 digest.
+     * A tree signature is accepted only for the value it signs, {@link Stribog256Tree#signedDigest(long, byte[])}
+     * with the chunk size and message length of the signature, never for the bare root.
+     *
+     * @param digest Stribog256 digest of the message or the signed digest of its tree for tree signatures, 32 bytes.
+     * @param signature detached signature in the format of .sig files.
+     * @param key public key.
+     * @throws IllegalArgumentException if the digest is not 32 bytes long.
+     */
+    public void verifyDigest(byte[] digest, byte[] signature, PublicKey key) throws FileCorruptedOrFalsify {
+        checkDigest(digest);
+        Map<String, BigInteger> params = parseDetachedSign(signature);
+        checkSign(BinaryUtils.convertBytesToBigInteger(digest), params.get("A"), params.get("B"), key);
+    }
+
+    /**
+     * Stribog256 digest of the whole file, to be signed later with {@link #signDigest(byte[], PrivateKey)}.
+     *
+     * @param file file to hash.
+     * @return 32-byte digest.
+     */
+    public byte[] hashFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return getFileHash(channel, channel.size());
+        }
+    }
+
+    /**
+     * Root of the tree hash of the whole file, chunks are hashed in parallel.
+     * A tree signature signs it bound to the chunk size and file length, see {@link Stribog256Tree#signedDigest(long, byte[])}.
+     *
+     * @param file file to hash.
+     * @param tree chunk size and workers of the tree hash.
+     * @return 32-byte root.
+     */
+    public byte[] hashFile(Path file, Stribog256Tree tree) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            PhaseTimer start = Metrics.start();
+            byte[] root = tree.root(channel, channel.size());
+            Metrics.phase(Phase.HASH, start);
+            Metrics.count(Counter.BYTES_HASHED, channel.size());
+            return root;
+        }
+    }
+
+    /**
+     * @param fileName signed file.
+     * @return default name of detached signature.
+     */
+    public static String getSigFileName(String fileName) {
+        return fileName + SIG_EXTENSION;
+    }
+
+    private void checkDigest(byte[] digest) {
+        if (digest.length != Stribog256Digest.DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Stribog256 digest must be " + Stribog256Digest.DIGEST_LENGTH + " bytes long");
+        }
+    }
+
+    private Map<String, BigInteger> parseDetachedSign(byte[] signature) throws FileCorruptedOrFalsify {
+        return parseDetachedSign(signature, null);
+    }
+
+    private Map<String, BigInteger> parseDetachedSign(byte[] signature, Map<String, ByteBuffer> raw) throws FileCorruptedOrFalsify {
+        Map<String, BigInteger> params = ParamsContainer.read(signature, raw);
+        verifyParams(params, "Signature corrupted!", "H", "A", "B");
+
+        HashAlgorithm algorithm = HashAlgorithm.valueOf(params.get("H"));
+        if (algorithm == null) {
+            throw new FileCorruptedOrFalsify("Unsupported hash algorithm!");
+        }
+        if (algorithm == HashAlgorithm.STRIBOG256_TREE) {
+            verifyParams(params, "Signature corrupted!", "C", "S");
+        }
+        return params;
+    }
+
+    /*
+        Tree hash recorded in the signature or null for plain Stribog256.
+     */
+    private Stribog256Tree getTree(Map<String, BigInteger> params) throws FileCorruptedOrFalsify {
+        if (HashAlgorithm.valueOf(params.get("H")) != HashAlgorithm.STRIBOG256_TREE) {
+            return null;
+        }
+        try {
+            return new Stribog256Tree(params.get("C").intValueExact());
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            throw new FileCorruptedOrFalsify("Signature corrupted!");
+        }
+    }
+
+    private long getMessageLength(Map<String, BigInteger> params) throws FileCorruptedOrFalsify {
+        try {
+            return params.get("S").longValueExact();
+        } catch (ArithmeticException e) {
+            throw new FileCorruptedOrFalsify("Signature corrupted!");
+        }
+    }
+
+    private void checkNodes(ByteBuffer nodes, long count) throws FileCorruptedOrFalsify {
+        if (count > Integer.MAX_VALUE / Stribog256Digest.DIGEST_LENGTH || nodes.remaining() != count * Stribog256Digest.DIGEST_LENGTH) {
+            throw new FileCorruptedOrFalsify("Signature corrupted!");
+        }
+    }
+
+    private void checkSign(BigInteger hashInt, BigInteger a, BigInteger b, PublicKey key) throws FileCorruptedOrFalsify {
+        if (a == null || b == null) {
+            throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+        }
+        PhaseTimer start = Metrics.start();
+        boolean valid = key.checkEquation(hashInt, a, b);
+        Metrics.phase(Phase.EXPONENTIATION, start);
+        Metrics.count(valid ? Counter.VERIFIED_VALID : Counter.VERIFIED_INVALID, 1);
+        if (!valid) {
+            throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+        }
+    }
+
+    private void reportError(IOException e) {
+        Metrics.count(Counter.FAILURES, 1);
+        System.err.printf("Something went wrong: %s", e.getMessage());
+    }
+
+    private byte[] readFile(Path file) throws IOException {
+        PhaseTimer start = Metrics.start();
+        byte[] data = Files.readAllBytes(file);
+        Metrics.phase(Phase.READ, start);
+        return data;
+    }
+
+    private void writeFile(Path file, byte[] data) throws IOException {
+        PhaseTimer start = Metrics.start();
+        Files.write(file, data);
+        Metrics.phase(Phase.WRITE, start);
+    }
+
     private byte[] readAllFile(String fileName) {
         byte[] data;
 
         try {
-            File file = new File(fileName);
-            data = Files.readAllBytes(file.toPath());
+            data = readFile(Paths.get(fileName));
         } catch (IOException e) {
-            System.err.printf("Something went wrong: %s", e.getMessage());
+            reportError(e);
             data = null;
         }
         return data;
     }
 
+    /**
+     * Read and parse private key once, so it can be used for many files.
+     * The key belongs to the caller, it never comes from the key cache: a cached key may be destroyed once the cache drops it.
+     *
+     * @param privateKey file with private key.
+     * @return parsed private key.
+     */
+    public PrivateKey loadPrivateKey(String privateKey) throws FileCorruptedOrFalsify {
+        return PrivateKey.fromParams(readParams(privateKey, "Private key corrupted!", "P", "G", "X"));
+    }
+
+    /*
+        With a key cache the key is leased for the whole operation, so eviction can not destroy it halfway.
+     */
+    private void withPrivateKey(String privateKey, KeyAction action) throws IOException, FileCorruptedOrFalsify {
+        if (keyCache == null) {
+            action.run(loadPrivateKey(privateKey));
+            return;
+        }
+        KeyCache.Lease lease;
+        try {
+            lease = keyCache.leasePrivateKey(Paths.get(privateKey));
+        } catch (IOException e) {
+            reportError(e);
+            throw new FileCorruptedOrFalsify("Private key corrupted!");
+        }
+        try (lease) {
+            action.run(lease.getKey());
+        }
+    }
+
+    /**
+     * Read and parse public key once, so it can be used for many files. With a key cache the file is
+     * parsed again only when it changes.
+     *
+     * @param publicKey file with public key.
+     * @return parsed public key.
+     */
+    public PublicKey loadPublicKey(String publicKey) throws FileCorruptedOrFalsify {
+        if (keyCache != null) {
+            try {
+                return keyCache.publicKey(Paths.get(publicKey));
+            } catch (IOException e) {
+                reportError(e);
+                throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+            }
+        }
+        return PublicKey.fromParams(readParams(publicKey, "File corrupted or falsify!", "P", "G", "Y"));
+    }
+
+    private byte[] readTail(FileChannel channel, int length) throws IOException {
+        PhaseTimer start = Metrics.start();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = channel.size() - length;
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        Metrics.phase(Phase.READ, start);
+        return buffer.array();
+    }
+
+    private Map<String, BigInteger> readParams(String fileName, String msg, String... check) throws FileCorruptedOrFalsify {
+        byte[] data = readAllFile(fileName);
+
+        if (data == null) {
+            throw new FileCorruptedOrFalsify(msg);
+        }
+        Map<String, BigInteger> params = ParamsContainer.read(data);
+        verifyParams(params, msg, check);
+        return params;
+    }
+
     private void verifyParams(Map<String, BigInteger> params, String msg, String... check) throws FileCorruptedOrFalsify {
         for (String param : check) {
             if (params.get(param) == null) {
@@ -98,48 +720,68 @@ public class DigitalSignature {
         }
     }
 
-    private byte[] getSignedMessage(byte[] message, BigInteger p, BigInteger g, BigInteger x) throws IOException {
-        byte[] sign = createSign(message, p, g, x);
-        return BinaryUtils.joinByteArrays(message, sign);
+    /*
+        Append A and B to the container.
+     */
+    private byte[] createSign(BigInteger hashInt, PrivateKey key, ParamsContainer.Writer writer) {
+        PhaseTimer start = Metrics.start();
+        Nonce nonce = key.nextNonce();
+        Metrics.phase(Phase.NONCE, start);
+        Metrics.count(Counter.SIGNATURES, 1);
+        BigInteger a = nonce.getA();
+        BigInteger b = calculateB(hashInt, key.getP().subtract(BigInteger.ONE), nonce.takeInverse(), key.getX(), a);
+        return writer.put(Params.A, a).put(Params.B, b).toByteArray();
     }
 
-    private byte[] createSign(byte[] message, BigInteger p, BigInteger g, BigInteger x) throws IOException {
-        byte[] hash = getMessageHash(message);
-        BigInteger hashInt = BinaryUtils.convertBytesToBigInteger(hash);
-
-        BigInteger r = generateRelativePrime(p.subtract(BigInteger.ONE));
-        BigInteger a = g.modPow(r, p);
-        BigInteger b = calculateB(hashInt, p.subtract(BigInteger.ONE), r, x, a);
-        return BinaryUtils.joinByteArrays(
-            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(a), Params.A),
-            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(b), Params.B)
-        );
+    /*
+        Hash of the first length bytes of the file, see Stribog256Digest for the block order.
+        Mapped, unless read-ahead is enabled: then large files are read on another thread while the previous buffer is hashed.
+     */
+    private byte[] getFileHash(FileChannel channel, long length) throws IOException {
+        PhaseTimer start = Metrics.start();
+        byte[] hash;
+        if (readAheadHasher != null && length >= READ_AHEAD_THRESHOLD) {
+            hash = readAheadHasher.hash(channel, 0, length);
+        } else {
+            Stribog256Digest digest = new Stribog256Digest();
+            digest.update(channel, 0, length);
+            hash = digest.digest();
+        }
+        Metrics.phase(Phase.HASH, start);
+        Metrics.count(Counter.BYTES_HASHED, length);
+        return hash;
     }
 
-    private byte[] getMessageHash(byte[] message) {
-        Stribog256 stribog256 = new Stribog256();
-        stribog256.fillBuffer(message);
-        return stribog256.getHash();
+    private byte[] hashMessage(byte[] message) {
+        PhaseTimer start = Metrics.start();
+        byte[] hash = new Stribog256Digest().digest(message);
+        Metrics.phase(Phase.HASH, start);
+        Metrics.count(Counter.BYTES_HASHED, message.length);
+        return hash;
     }
 
-    private BigInteger calculateB(BigInteger hashInt, BigInteger p, BigInteger r, BigInteger x, BigInteger a) {
-        BigInteger[] coefficients = gcdExtended(r, p);
-        BigInteger reverseR = coefficients[1].mod(p);
+    /*
+        b = (hash - x * a) * r^-1 mod (p - 1)
+     */
+    private BigInteger calculateB(BigInteger hashInt, BigInteger p, BigInteger reverseR, BigInteger x, BigInteger a) {
         BigInteger diff = hashInt.subtract(x.multiply(a)).mod(p);
         return diff.multiply(reverseR).mod(p);
     }
 
     /**
-     * Safe prime: p = 2q + 1, where q is prime
+     * Safe prime: p = 2q + 1, where q is prime. Searched on all threads, see {@link SafePrimeSearch}.
      */
-    private BigInteger generateSafePrimeP() {
-        BigInteger p;
-
-        do {
-            BigInteger q = PrimeUtils.generatePrimeNum(BIT_LENGTH - 1);
-            p = q.multiply(BigInteger.TWO).add(BigInteger.ONE);
-        } while (!PrimeUtils.isPrime(p, ROUNDS));
-        return p;
+    private BigInteger generateSafePrimeP() throws InterruptedException {
+        PhaseTimer start = Metrics.start();
+        SafePrimeSearch search = new SafePrimeSearch(bitLength, threads, primalityTest);
+        try {
+            return search.search();
+        } finally {
+            Metrics.phase(Phase.SAFE_PRIME, start);
+            Metrics.count(Counter.PRIME_CANDIDATES, search.getCandidates());
+            Metrics.count(Counter.PRIMALITY_TESTED, search.getTested());
+            Metrics.count(Counter.PRIMALITY_REJECTED, search.getRejected());
+        }
     }
 
     /**
@@ -162,64 +804,25 @@ public class DigitalSignature {
         return alpha;
     }
 
-    private void writeKeyToFile(BigInteger p, BigInteger g, BigInteger key, String fileName) {
-        byte[] byteP = BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(p), Params.P);
-        byte[] byteG = BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(g), Params.G);
-        byte[] byteKey;
-
-        if (ELGAMAL.equals(fileName)) {
-            byteKey = BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(key), Params.X);
-        } else {
-            byteKey = BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(key), Params.Y);
-        }
+    private boolean writeKeyToFile(BigInteger p, BigInteger g, BigInteger key, String fileName) {
+        byte[] data = new ParamsContainer.Writer()
+            .put(Params.P, p)
+            .put(Params.G, g)
+            .put(ELGAMAL.equals(fileName) ? Params.X : Params.Y, key)
+            .toByteArray();
 
         try {
-            FileOutputStream fileOutputStream = new FileOutputStream(fileName);
-            fileOutputStream.write(BinaryUtils.joinByteArrays(byteP, byteG, byteKey));
-            fileOutputStream.close();
+            writeFile(Paths.get(fileName), data);
+            return true;
         } catch (IOException e) {
+            Metrics.count(Counter.FAILURES, 1);
             System.err.printf("Something goes wrong while creating file %s: %s%n", fileName, e.getMessage());
+            return false;
         }
     }
 
-    private BigInteger generateRelativePrime(BigInteger n) {
-        BigInteger r;
-        do {
-            r = PrimeUtils.generateBigIntegerInRange(BigInteger.ONE, n.subtract(BigInteger.ONE));
-        } while (!r.gcd(n).equals(BigInteger.ONE));
-        return r;
-    }
-
-    /*
-        f1 = g^(hash) mod p
-     */
-    private BigInteger calculateF1(byte[] message, BigInteger g, BigInteger p) {
-        byte[] hash = getMessageHash(message);
-        BigInteger hashInt = BinaryUtils.convertBytesToBigInteger(hash);
-        return g.modPow(hashInt, p);
-    }
-
-    /*
-        f2 = (y^a * a^b) mod p
-     */
-    private BigInteger calculateF2(BigInteger y, BigInteger a, BigInteger b, BigInteger p) {
-        BigInteger ya = y.modPow(a, p);
-        BigInteger ab = a.modPow(b, p);
-        return ya.multiply(ab).mod(p);
-    }
-
-    /*
-        return array [d, a, b] such that d = gcd(p, q), ap + bq = d
-     */
-    private BigInteger[] gcdExtended(BigInteger p, BigInteger q) {
-        if (q.equals(BigInteger.ZERO)) {
-            return new BigInteger[] {p, BigInteger.ONE, BigInteger.ZERO};
-        }
+    private interface KeyAction {
 
-        BigInteger[] values = gcdExtended(q, p.mod(q));
-        BigInteger d = values[0];
-        BigInteger a = values[2];
-        BigInteger b = values[1].subtract(p.divide(q).multiply(values[2]));
-        return new BigInteger[] {d, a, b};
+        void run(PrivateKey key) throws IOException;
     }
 }
@@ -1,32 +1,208 @@
 package vuz.elgamal;
 
 import org.apache.commons.cli.CommandLine;
+import vuz.elgamal.batch.BatchFiles;
+import vuz.elgamal.batch.BatchSigner;
+import vuz.elgamal.batch.BatchSummary;
+import vuz.elgamal.batch.BatchVerifier;
 import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.hash.ReadAheadHasher;
+import vuz.elgamal.hash.Stribog256Tree;
+import vuz.elgamal.keys.PrivateKey;
+import vuz.elgamal.keys.PublicKey;
+import vuz.elgamal.metrics.Metrics;
+import vuz.elgamal.server.SigningServer;
+import vuz.elgamal.utils.BinaryUtils;
+import vuz.elgamal.utils.PrimalityTest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 public class ElGamal {
 
-    private final DigitalSignature digitalSignature = new DigitalSignature();
+    private DigitalSignature digitalSignature = new DigitalSignature();
 
     public void processArgs(CommandLine line) {
+        if (line.hasOption("read-ahead")) {
+            if (Runtime.getRuntime().availableProcessors() > 1) {
+                digitalSignature = new DigitalSignature(new ReadAheadHasher());
+            } else {
+                System.err.println("Read-ahead needs a second core, files are hashed from mapped memory");
+            }
+        }
         if (line.hasOption("g")) {
-            digitalSignature.generatePublicAndPrivateKeys();
-            System.out.println("Private and public keys are generated!");
+            PrimalityTest primalityTest = PrimalityTest.forName(line.getOptionValue("primality", "fips"), DigitalSignature.ROUNDS);
+            if (primalityTest == null) {
+                System.err.println("Unknown primality test, use mr, fips or bpsw");
+                return;
+            }
+            if (new DigitalSignature(getKeySize(line), getThreads(line), primalityTest).generatePublicAndPrivateKeys()) {
+                System.out.println("Private and public keys are generated!");
+            }
+        } else if (line.hasOption("serve") && (line.hasOption("sk") || line.hasOption("pk"))) {
+            serve(line);
+        } else if (line.hasOption("hash") && line.hasOption("m")) {
+            try {
+                System.out.println(BinaryUtils.bytesToHexString(digitalSignature.hashFile(Paths.get(line.getOptionValue("m")))));
+            } catch (IOException e) {
+                System.err.printf("Something went wrong: %s%n", e.getMessage());
+            }
+        } else if (line.hasOption("digest") && !line.hasOption("sig")) {
+            System.err.println("Signature file for --digest must be given with -sig");
+        } else if (line.hasOption("s") && line.hasOption("sk") && line.hasOption("digest")) {
+            try {
+                String digest = line.getOptionValue("digest");
+                digitalSignature.signDigest(digest, line.getOptionValue("sk"), line.getOptionValue("sig"));
+                System.out.println("Digest signed!");
+            } catch (FileCorruptedOrFalsify fileCorruptedOrFalsify) {
+                System.err.println(fileCorruptedOrFalsify.getMessage());
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+        } else if (line.hasOption("v") && line.hasOption("pk") && line.hasOption("digest")) {
+            try {
+                String digest = line.getOptionValue("digest");
+                digitalSignature.verifyDigest(digest, line.getOptionValue("sig"), line.getOptionValue("pk"));
+                System.out.println("Sign valid!");
+            } catch (FileCorruptedOrFalsify fileCorruptedOrFalsify) {
+                System.err.println("File corrupted or falsify!");
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+        } else if (line.hasOption("s") && line.hasOption("sk") && line.hasOption("b")) {
+            signBatch(line);
         } else if (line.hasOption("s") && line.hasOption("sk") && line.hasOption("m")) {
             try {
-                digitalSignature.signFile(line.getOptionValue("m"), line.getOptionValue("sk"));
+                if (line.hasOption("tree")) {
+                    digitalSignature.signFileDetached(line.getOptionValue("m"), line.getOptionValue("sk"), getChunkSize(line), line.hasOption("store-nodes"));
+                } else if (line.hasOption("d")) {
+                    digitalSignature.signFileDetached(line.getOptionValue("m"), line.getOptionValue("sk"));
+                } else {
+                    digitalSignature.signFile(line.getOptionValue("m"), line.getOptionValue("sk"));
+                }
                 System.out.println("File signed!");
             } catch (FileCorruptedOrFalsify fileCorruptedOrFalsify) {
                 System.err.println(fileCorruptedOrFalsify.getMessage());
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
             }
+        } else if (line.hasOption("v") && line.hasOption("pk") && line.hasOption("b")) {
+            verifyBatch(line);
         } else if (line.hasOption("v") && line.hasOption("pk") && line.hasOption("m")) {
             try {
-                digitalSignature.verifySign(line.getOptionValue("m"), line.getOptionValue("pk"));
+                if (line.hasOption("range")) {
+                    String sigFile = line.getOptionValue("sig", DigitalSignature.getSigFileName(line.getOptionValue("m")));
+                    String[] range = line.getOptionValue("range").split(":");
+                    if (range.length != 2) {
+                        throw new IllegalArgumentException("Range must be offset:length");
+                    }
+                    digitalSignature.verifyRange(line.getOptionValue("m"), sigFile, line.getOptionValue("pk"),
+                        Long.parseLong(range[0]), Long.parseLong(range[1]));
+                } else if (line.hasOption("d") || line.hasOption("sig")) {
+                    String sigFile = line.getOptionValue("sig", DigitalSignature.getSigFileName(line.getOptionValue("m")));
+                    digitalSignature.verifyDetachedSign(line.getOptionValue("m"), sigFile, line.getOptionValue("pk"));
+                } else {
+                    digitalSignature.verifySign(line.getOptionValue("m"), line.getOptionValue("pk"));
+                }
                 System.out.println("Sign valid!");
             } catch (FileCorruptedOrFalsify fileCorruptedOrFalsify) {
                 System.err.println("File corrupted or falsify!");
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
             }
         } else {
             System.err.println("Arguments are not enough or they are entered incorrectly");
         }
+        if (line.hasOption("metrics") && !line.hasOption("serve")) {
+            System.out.print(Metrics.getDefault());
+        }
+    }
+
+    private void signBatch(CommandLine line) {
+        try {
+            PrivateKey key = digitalSignature.loadPrivateKey(line.getOptionValue("sk"));
+            List<Path> files = BatchFiles.collect(Paths.get(line.getOptionValue("b")));
+            BatchSigner signer = new BatchSigner(digitalSignature, key, line.hasOption("d"), getThreads(line));
+
+            BatchSummary summary = signer.sign(files, System.out::println);
+            System.out.println(summary);
+        } catch (FileCorruptedOrFalsify fileCorruptedOrFalsify) {
+            System.err.println(fileCorruptedOrFalsify.getMessage());
+        } catch (IOException e) {
+            System.err.printf("Something went wrong: %s%n", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void verifyBatch(CommandLine line) {
+        try {
+            PublicKey key = digitalSignature.loadPublicKey(line.getOptionValue("pk"));
+            List<Path> files = BatchFiles.collect(Paths.get(line.getOptionValue("b")));
+
+            try (BatchVerifier verifier = new BatchVerifier(digitalSignature, key, line.hasOption("d"), getThreads(line))) {
+                BatchSummary summary = verifier.verify(files, System.out::println);
+                System.out.println(summary);
+            }
+        } catch (FileCorruptedOrFalsify fileCorruptedOrFalsify) {
+            System.err.println(fileCorruptedOrFalsify.getMessage());
+        } catch (IOException e) {
+            System.err.printf("Something went wrong: %s%n", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serve(CommandLine line) {
+        try {
+            PrivateKey privateKey = line.hasOption("sk") ? digitalSignature.loadPrivateKey(line.getOptionValue("sk")) : null;
+            PublicKey publicKey = line.hasOption("pk") ? digitalSignature.loadPublicKey(line.getOptionValue("pk")) : null;
+            Path tokenFile = Paths.get(line.getOptionValue("token", SigningServer.DEFAULT_TOKEN_FILE));
+            String token = SigningServer.loadToken(tokenFile);
+            SigningServer server = new SigningServer(digitalSignature, privateKey, publicKey, getPort(line), getThreads(line), token);
+
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.start();
+            System.out.printf("Listening on http://localhost:%d%n", server.getPort());
+            System.out.printf("Send the bearer token from %s in the Authorization header%n", tokenFile);
+        } catch (FileCorruptedOrFalsify fileCorruptedOrFalsify) {
+            System.err.println(fileCorruptedOrFalsify.getMessage());
+        } catch (IOException e) {
+            System.err.printf("Something went wrong: %s%n", e.getMessage());
+        }
+    }
+
+    private int getPort(CommandLine line) {
+        try {
+            return Integer.parseInt(line.getOptionValue("serve", String.valueOf(SigningServer.DEFAULT_PORT)));
+        } catch (NumberFormatException e) {
+            return SigningServer.DEFAULT_PORT;
+        }
+    }
+
+    private int getChunkSize(CommandLine line) {
+        try {
+            return Math.multiplyExact(Integer.parseInt(line.getOptionValue("tree", String.valueOf(Stribog256Tree.DEFAULT_CHUNK_SIZE / 1024))), 1024);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return Stribog256Tree.DEFAULT_CHUNK_SIZE;
+        }
+    }
+
+    private int getKeySize(CommandLine line) {
+        try {
+            return Integer.parseInt(line.getOptionValue("k", String.valueOf(DigitalSignature.DEFAULT_BIT_LENGTH)));
+        } catch (NumberFormatException e) {
+            return DigitalSignature.DEFAULT_BIT_LENGTH;
+        }
+    }
+
+    private int getThreads(CommandLine line) {
+        try {
+            return Math.max(1, Integer.parseInt(line.getOptionValue("t", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        } catch (NumberFormatException e) {
+            return Runtime.getRuntime().availableProcessors();
+        }
     }
 }
@@ -19,9 +19,10 @@ public class Main {
         CommandLine line = null;
         Options options = new Options();
 
-        options.addOption("g", "generate-keys", false, "generate 512-bit public and private keys in the current directory");
+        options.addOption("g", "generate-keys", false, "generate public and private keys in the current directory");
         options.addOption("s", "sign", false, "sign the file with a private key");
         options.addOption("v", "verify", false, "verify digital signature");
+        options.addOption("d", "detached", false, "keep the file untouched and use detached signature <file>.sig");
         options.addOption(
             Option.builder("pk")
                     .argName("file")
@@ -44,6 +45,117 @@ public class Main {
                     .build()
         );
 
+        options.addOption(
+            Option.builder("sig")
+                    .argName("file")
+                    .hasArg()
+                    .desc("name of the file with detached signature, <file>.sig by default")
+                    .build()
+        );
+
+        options.addOption(
+            Option.builder()
+                    .longOpt("hash")
+                    .desc("print Stribog256 digest of the file (-m) to sign it elsewhere with --digest")
+                    .build()
+        );
+        options.addOption(
+            Option.builder()
+                    .longOpt("digest")
+                    .argName("hex")
+                    .hasArg()
+                    .desc("sign or verify a pre-computed Stribog256 digest instead of a file, signature is kept in -sig <file>, which is required")
+                    .build()
+        );
+
+        options.addOption(
+            Option.builder()
+                    .longOpt("tree")
+                    .argName("KB")
+                    .hasArg()
+                    .optionalArg(true)
+                    .desc("sign a detached signature over a Merkle tree of chunks hashed on all cores, 1024 KB chunks by default")
+                    .build()
+        );
+
+        options.addOption(
+            Option.builder()
+                    .longOpt("store-nodes")
+                    .desc("with --tree also store digests of all tree nodes in the signature, 64 bytes per chunk, to verify parts of the file with --range")
+                    .build()
+        );
+        options.addOption(
+            Option.builder()
+                    .longOpt("range")
+                    .argName("offset:length")
+                    .hasArg()
+                    .desc("verify only the given bytes of the file (-m) against a signature made with --store-nodes")
+                    .build()
+        );
+
+        options.addOption(
+            Option.builder()
+                    .longOpt("read-ahead")
+                    .desc("hash files of 16 MB and more with reads on another thread instead of mapped memory, may help on slow uncached storage, ignored on a single core")
+                    .build()
+        );
+
+        options.addOption(
+            Option.builder("b")
+                    .longOpt("batch")
+                    .argName("dir|manifest")
+                    .hasArg()
+                    .desc("process every file of the directory tree or of the manifest (one file name per line)")
+                    .build()
+        );
+        options.addOption(
+            Option.builder("k")
+                    .longOpt("key-size")
+                    .argName("bits")
+                    .hasArg()
+                    .desc("size of generated keys, 512 by default")
+                    .build()
+        );
+        options.addOption(
+            Option.builder()
+                    .longOpt("primality")
+                    .argName("mr|fips|bpsw")
+                    .hasArg()
+                    .desc("primality test for key generation: 512-round Miller-Rabin, FIPS 186-5 round counts (default) or Baillie-PSW")
+                    .build()
+        );
+        options.addOption(
+            Option.builder()
+                    .longOpt("serve")
+                    .argName("port")
+                    .hasArg()
+                    .optionalArg(true)
+                    .desc("keep keys loaded and serve sign (-sk) and verify (-pk) requests on a loopback HTTP port, 8421 by default")
+                    .build()
+        );
+        options.addOption(
+            Option.builder()
+                    .longOpt("token")
+                    .argName("file")
+                    .hasArg()
+                    .desc("file with the bearer token required by --serve, readable by its owner only, created with a random token if missing, elgamal.token by default")
+                    .build()
+        );
+        options.addOption(
+            Option.builder()
+                    .longOpt("metrics")
+                    .desc("print time spent reading, hashing, in nonces, exponentiation, writing and prime search after the run")
+                    .build()
+        );
+        options.addOption(
+            Option.builder("t")
+                    .longOpt("threads")
+                    .argName("n")
+                    .hasArg()
+                    .desc("number of worker threads for batch mode, server and key generation, all cores by default")
+                    .build()
+        );
+
         try {
             line = parser.parse(options, args);
         } catch (ParseException e) {
@@ -13,15 +13,23 @@ public class Params {
     public static final byte G = (byte) 0xee;
     public static final byte X = (byte) 0xff;
     public static final byte Y = (byte) 0xab;
+    public static final byte H = (byte) 0xac;
+    public static final byte C = (byte) 0xad;
+    public static final byte S = (byte) 0xae;
+    public static final byte T = (byte) 0xaf;
 
-    private static final Map<Byte, String> mapping = Map.of(
-        A, "A",
-        B, "B",
-        M, "M",
-        P, "P",
-        G, "G",
-        X, "X",
-        Y, "Y"
+    private static final Map<Byte, String> mapping = Map.ofEntries(
+        Map.entry(A, "A"),
+        Map.entry(B, "B"),
+        Map.entry(M, "M"),
+        Map.entry(P, "P"),
+        Map.entry(G, "G"),
+        Map.entry(X, "X"),
+        Map.entry(Y, "Y"),
+        Map.entry(H, "H"),
+        Map.entry(C, "C"),
+        Map.entry(S, "S"),
+        Map.entry(T, "T")
     );
 
     public static String mapByteToString(byte b) throws FileCorruptedOrFalsify {
@@ -32,4 +40,12 @@ public class Params {
         }
         return param;
     }
+
+    /**
+     * @param b tag.
+     * @return true if the value is raw bytes rather than a number: T, digests of tree nodes.
+     */
+    public static boolean isRaw(byte b) {
+        return b == T;
+    }
 }
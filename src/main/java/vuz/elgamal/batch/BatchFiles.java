@@ -0,0 +1,39 @@
+package vuz.elgamal.batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class BatchFiles {
+
+    private static final String SIG_EXTENSION = ".sig";
+
+    /**
+     * Files of a batch.
+     * Directory - every regular file of the tree except detached signatures (*.sig).
+     * Otherwise the path is a manifest with one file name per line, blank lines are skipped.
+     *
+     * @param path directory or manifest.
+     * @return files to process.
+     */
+    public static List<Path> collect(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> tree = Files.walk(path)) {
+                return tree.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(SIG_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+            }
+        }
+        try (Stream<String> lines = Files.lines(path)) {
+            return lines.map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .map(Paths::get)
+                .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package vuz.elgamal.batch;
+
+import java.nio.file.Path;
+
+/**
+ * Result of processing one file in a batch.
+ */
+public class BatchResult {
+
+    private final Path file;
+    private final long bytes;
+    private final long nanos;
+    private final String error;
+
+    public BatchResult(Path file, long bytes, long nanos, String error) {
+        this.file = file;
+        this.bytes = bytes;
+        this.nanos = nanos;
+        this.error = error;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return reason of failure or null if file processed successfully.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "OK " + file : "FAILED " + file + ": " + error;
+    }
+}
@@ -0,0 +1,106 @@
+package vuz.elgamal.batch;
+
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.keys.PrivateKey;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Signs many files with one parsed private key, fixed-base table for g is built once in the constructor.
+ * Hashing and signing run on a fixed pool of threads,
+ * the task queue is bounded, so a huge batch does not pile up in memory: when the queue is full
+ * the submitting thread signs the file itself.
+ */
+public class BatchSigner {
+
+    private static final int QUEUE_PER_THREAD = 4;
+
+    private final DigitalSignature digitalSignature;
+    private final PrivateKey key;
+    private final boolean detached;
+    private final int threads;
+
+    /**
+     * @param digitalSignature signature scheme.
+     * @param key private key, parsed once for the whole batch.
+     * @param detached write detached .sig files instead of appending signatures.
+     * @param threads number of worker threads.
+     */
+    public BatchSigner(DigitalSignature digitalSignature, PrivateKey key, boolean detached, int threads) {
+        this.digitalSignature = digitalSignature;
+        this.key = key.precompute();
+        this.detached = detached;
+        this.threads = threads;
+    }
+
+    /**
+     * Sign all files.
+     *
+     * @param files files to sign.
+     * @param listener receives result of every file as soon as it is signed, called from worker threads.
+     * @return totals of the run.
+     */
+    public BatchSummary sign(List<Path> files, Consumer<BatchResult> listener) throws InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<BatchResult>> futures = new ArrayList<>(files.size());
+        long start = System.nanoTime();
+
+        try {
+            for (Path file : files) {
+                futures.add(executor.submit(() -> {
+                    BatchResult result = signOne(file);
+                    listener.accept(result);
+                    return result;
+                }));
+            }
+            return summarize(futures, start);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BatchResult signOne(Path file) {
+        long start = System.nanoTime();
+
+        try {
+            long bytes = Files.size(file);
+            if (detached) {
+                digitalSignature.signFileDetached(file, key);
+            } else {
+                digitalSignature.signFile(file, key);
+            }
+            return new BatchResult(file, bytes, System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            return new BatchResult(file, 0, System.nanoTime() - start, String.valueOf(e.getMessage()));
+        }
+    }
+
+    static BatchSummary summarize(List<Future<BatchResult>> futures, long startNanos) throws InterruptedException {
+        int failed = 0;
+        long bytes = 0;
+
+        for (Future<BatchResult> future : futures) {
+            try {
+                BatchResult result = future.get();
+                bytes += result.getBytes();
+                if (!result.isSuccess()) {
+                    failed++;
+                }
+            } catch (ExecutionException e) {
+                failed++;
+            }
+        }
+        return new BatchSummary(futures.size(), failed, bytes, System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,52 @@
+package vuz.elgamal.batch;
+
+/**
+ * Totals of a batch run.
+ */
+public class BatchSummary {
+
+    private static final double NANOS_IN_SECOND = 1e9;
+    private static final double BYTES_IN_MEGABYTE = 1024 * 1024;
+
+    private final int files;
+    private final int failed;
+    private final long bytes;
+    private final long nanos;
+
+    public BatchSummary(int files, int failed, long bytes, long nanos) {
+        this.files = files;
+        this.failed = failed;
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public double filesPerSecond() {
+        return nanos == 0 ? 0 : files * NANOS_IN_SECOND / nanos;
+    }
+
+    public double megabytesPerSecond() {
+        return nanos == 0 ? 0 : bytes / BYTES_IN_MEGABYTE * NANOS_IN_SECOND / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Files: %d, failed: %d, %.1f MB in %.2f s, %.1f files/s, %.1f MB/s",
+            files, failed, bytes / BYTES_IN_MEGABYTE, nanos / NANOS_IN_SECOND, filesPerSecond(), megabytesPerSecond());
+    }
+}
@@ -0,0 +1,133 @@
+package vuz.elgamal.batch;
+
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.keys.PublicKey;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+
+/**
+ * Verifies many files concurrently with one parsed public key.
+ * Fixed-base tables for g and y are built once in the constructor and reused by every check.
+ */
+public class BatchVerifier implements AutoCloseable {
+
+    private static final int QUEUE_PER_THREAD = 4;
+
+    private final DigitalSignature digitalSignature;
+    private final PublicKey key;
+    private final boolean detached;
+    private final int threads;
+    private final ExecutorService executor;
+
+    /**
+     * @param digitalSignature signature scheme.
+     * @param key public key, parsed once for the whole batch.
+     * @param detached verify detached &lt;file&gt;.sig signatures instead of appended ones.
+     * @param threads number of worker threads.
+     */
+    public BatchVerifier(DigitalSignature digitalSignature, PublicKey key, boolean detached, int threads) {
+        this.digitalSignature = digitalSignature;
+        this.key = key.precompute();
+        this.detached = detached;
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * @param file file to verify.
+     * @return result completed by a worker thread.
+     */
+    public CompletableFuture<BatchResult> verify(Path file) {
+        return CompletableFuture.supplyAsync(() -> verifyOne(file), executor);
+    }
+
+    /**
+     * Verify all files, at most 4 files per thread are in flight.
+     *
+     * @param files files to verify.
+     * @param listener receives result of every file as soon as it is checked, called from worker threads.
+     * @return totals of the run.
+     */
+    public BatchSummary verify(List<Path> files, Consumer<BatchResult> listener) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(threads * QUEUE_PER_THREAD);
+        List<Future<BatchResult>> futures = new ArrayList<>(files.size());
+        long start = System.nanoTime();
+
+        for (Path file : files) {
+            inFlight.acquire();
+            futures.add(verify(file).whenComplete((result, e) -> {
+                try {
+                    if (result != null) {
+                        listener.accept(result);
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            }));
+        }
+        return BatchSigner.summarize(futures, start);
+    }
+
+    /**
+     * Results are published in completion order, the publisher completes after the last file.
+     * Verification starts when a subscriber subscribes, slow subscribers throttle the workers.
+     *
+     * @param files files to verify.
+     * @return publisher of results.
+     */
+    public Flow.Publisher<BatchResult> publish(List<Path> files) {
+        return subscriber -> {
+            SubmissionPublisher<BatchResult> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+
+            Thread dispatcher = new Thread(() -> {
+                try {
+                    verify(files, publisher::submit);
+                    publisher.close();
+                } catch (InterruptedException e) {
+                    publisher.closeExceptionally(e);
+                }
+            }, "batch-verifier-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        };
+    }
+
+    private BatchResult verifyOne(Path file) {
+        long start = System.nanoTime();
+
+        try {
+            long bytes = Files.size(file);
+            if (detached) {
+                Path sigFile = Paths.get(DigitalSignature.getSigFileName(file.toString()));
+                digitalSignature.verifyDetachedSign(file, sigFile, key);
+            } else {
+                digitalSignature.verifySign(file, key);
+            }
+            return new BatchResult(file, bytes, System.nanoTime() - start, null);
+        } catch (FileCorruptedOrFalsify e) {
+            return new BatchResult(file, 0, System.nanoTime() - start, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            return new BatchResult(file, 0, System.nanoTime() - start, String.valueOf(e.getMessage()));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,256 @@
+package vuz.elgamal.hash;
+
+import vuz.elgamal.hash.constants.Data;
+
+import java.util.Arrays;
+
+/**
+ * Table-driven implementation of {@link Stribog256}.
+ * The 512-bit state is packed into eight long words, word 0 holds the most significant bytes
+ * (the same big-endian order as the int vectors of {@link Stribog256}).
+ * S, P and L transformations are merged into eight precomputed tables, so LPS costs 64 lookups.
+ * Digests are bit-for-bit the same as {@link Stribog256#getHash()}.
+ *
+ * Instances keep scratch buffers, {@link #getHash(byte[])} allocates only its result. Instances are not thread-safe.
+ */
+public class FastStribog256 {
+
+    static final int BLOCK_SIZE = 64;
+    static final int HASH_SIZE = 32;
+
+    private static final long[][] SLP = new long[8][256];
+    private static final long[] T0 = SLP[0];
+    private static final long[] T1 = SLP[1];
+    private static final long[] T2 = SLP[2];
+    private static final long[] T3 = SLP[3];
+    private static final long[] T4 = SLP[4];
+    private static final long[] T5 = SLP[5];
+    private static final long[] T6 = SLP[6];
+    private static final long[] T7 = SLP[7];
+    private static final long[][] C = new long[12][];
+    private static final long[] IV = new long[8];
+    private static final long[] ZERO = new long[8];
+    private static final long[] BV512 = toLongs(Data.bv512);
+
+    private static final long LOW7 = 0x7f7f7f7f7f7f7f7fL;
+    private static final long HIGH = 0x8080808080808080L;
+
+    private final long[] k = new long[8];
+    private final long[] state = new long[8];
+    private final long[] tmp = new long[8];
+    private final long[] h = new long[8];
+    private final long[] n = new long[8];
+    private final long[] sigma = new long[8];
+    private final long[] m = new long[8];
+    private final long[] length = new long[8];
+    private final byte[] block = new byte[BLOCK_SIZE];
+
+    /**
+     * @param message whole message.
+     * @return 256-bit hash, same as {@link Stribog256#getHash()} after {@code fillBuffer(message)}.
+     */
+    public byte[] getHash(byte[] message) {
+        System.arraycopy(IV, 0, h, 0, 8);
+        Arrays.fill(n, 0);
+        Arrays.fill(sigma, 0);
+        int l = message.length;
+
+        while (l >= BLOCK_SIZE) {
+            readBlock(message, l - BLOCK_SIZE, m);
+            compressBlock(h, n, sigma, m);
+            l -= BLOCK_SIZE;
+        }
+        return finish(h, n, sigma, m, message, 0, l);
+    }
+
+    static long[] newState() {
+        return IV.clone();
+    }
+
+    /**
+     * One iteration of the main loop of {@link Stribog256#hashX}: h = gN(N, h, m), N += 512, Sigma += m.
+     */
+    void compressBlock(long[] h, long[] n, long[] sigma, long[] m) {
+        gN(h, n, m);
+        add(n, BV512);
+        add(sigma, m);
+    }
+
+    /**
+     * Pads the last {@code len} bytes (beginning of the message) and runs the finalization.
+     *
+     * @param m scratch block.
+     * @return 256-bit hash.
+     */
+    byte[] finish(long[] h, long[] n, long[] sigma, long[] m, byte[] tail, int off, int len) {
+        Arrays.fill(block, (byte) 0);
+        block[BLOCK_SIZE - 1 - len] = 0x01;
+        System.arraycopy(tail, off, block, BLOCK_SIZE - len, len);
+        readBlock(block, 0, m);
+
+        gN(h, n, m);
+        length[7] = len * 8L;
+        add(n, length);
+        add(sigma, m);
+        gN(h, ZERO, n);
+        gN(h, ZERO, sigma);
+
+        byte[] result = new byte[HASH_SIZE];
+        for (int i = 0; i < HASH_SIZE; i++) {
+            result[i] = (byte) (h[i >> 3] >>> (56 - 8 * (i & 7)));
+        }
+        return result;
+    }
+
+    /*
+        h = E(LPS(h ^ N), m) ^ h ^ m
+     */
+    void gN(long[] h, long[] n, long[] m) {
+        for (int i = 0; i < 8; i++) {
+            tmp[i] = h[i] ^ n[i];
+        }
+        LPS(tmp, k);
+        for (int i = 0; i < 8; i++) {
+            state[i] = k[i] ^ m[i];
+        }
+        for (int r = 0; r < 12; r++) {
+            LPS(state, tmp);
+            long[] c = C[r];
+            for (int i = 0; i < 8; i++) {
+                state[i] = k[i] ^ c[i];
+            }
+            LPS(state, k);
+            for (int i = 0; i < 8; i++) {
+                state[i] = tmp[i] ^ k[i];
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            h[i] ^= state[i] ^ m[i];
+        }
+    }
+
+    /*
+        Byte i of word k after S and P lands in word i, so every output word is a xor of eight lookups.
+     */
+    private static void LPS(long[] in, long[] out) {
+        long s0 = in[0], s1 = in[1], s2 = in[2], s3 = in[3], s4 = in[4], s5 = in[5], s6 = in[6], s7 = in[7];
+        out[0] = T0[((int) (s0 >>> 56) & 0xFF)]
+            ^ T1[((int) (s1 >>> 56) & 0xFF)]
+            ^ T2[((int) (s2 >>> 56) & 0xFF)]
+            ^ T3[((int) (s3 >>> 56) & 0xFF)]
+            ^ T4[((int) (s4 >>> 56) & 0xFF)]
+            ^ T5[((int) (s5 >>> 56) & 0xFF)]
+            ^ T6[((int) (s6 >>> 56) & 0xFF)]
+            ^ T7[((int) (s7 >>> 56) & 0xFF)];
+        out[1] = T0[((int) (s0 >>> 48) & 0xFF)]
+            ^ T1[((int) (s1 >>> 48) & 0xFF)]
+            ^ T2[((int) (s2 >>> 48) & 0xFF)]
+            ^ T3[((int) (s3 >>> 48) & 0xFF)]
+            ^ T4[((int) (s4 >>> 48) & 0xFF)]
+            ^ T5[((int) (s5 >>> 48) & 0xFF)]
+            ^ T6[((int) (s6 >>> 48) & 0xFF)]
+            ^ T7[((int) (s7 >>> 48) & 0xFF)];
+        out[2] = T0[((int) (s0 >>> 40) & 0xFF)]
+            ^ T1[((int) (s1 >>> 40) & 0xFF)]
+            ^ T2[((int) (s2 >>> 40) & 0xFF)]
+            ^ T3[((int) (s3 >>> 40) & 0xFF)]
+            ^ T4[((int) (s4 >>> 40) & 0xFF)]
+            ^ T5[((int) (s5 >>> 40) & 0xFF)]
+            ^ T6[((int) (s6 >>> 40) & 0xFF)]
+            ^ T7[((int) (s7 >>> 40) & 0xFF)];
+        out[3] = T0[((int) (s0 >>> 32) & 0xFF)]
+            ^ T1[((int) (s1 >>> 32) & 0xFF)]
+            ^ T2[((int) (s2 >>> 32) & 0xFF)]
+            ^ T3[((int) (s3 >>> 32) & 0xFF)]
+            ^ T4[((int) (s4 >>> 32) & 0xFF)]
+            ^ T5[((int) (s5 >>> 32) & 0xFF)]
+            ^ T6[((int) (s6 >>> 32) & 0xFF)]
+            ^ T7[((int) (s7 >>> 32) & 0xFF)];
+        out[4] = T0[((int) (s0 >>> 24) & 0xFF)]
+            ^ T1[((int) (s1 >>> 24) & 0xFF)]
+            ^ T2[((int) (s2 >>> 24) & 0xFF)]
+            ^ T3[((int) (s3 >>> 24) & 0xFF)]
+            ^ T4[((int) (s4 >>> 24) & 0xFF)]
+            ^ T5[((int) (s5 >>> 24) & 0xFF)]
+            ^ T6[((int) (s6 >>> 24) & 0xFF)]
+            ^ T7[((int) (s7 >>> 24) & 0xFF)];
+        out[5] = T0[((int) (s0 >>> 16) & 0xFF)]
+            ^ T1[((int) (s1 >>> 16) & 0xFF)]
+            ^ T2[((int) (s2 >>> 16) & 0xFF)]
+            ^ T3[((int) (s3 >>> 16) & 0xFF)]
+            ^ T4[((int) (s4 >>> 16) & 0xFF)]
+            ^ T5[((int) (s5 >>> 16) & 0xFF)]
+            ^ T6[((int) (s6 >>> 16) & 0xFF)]
+            ^ T7[((int) (s7 >>> 16) & 0xFF)];
+        out[6] = T0[((int) (s0 >>> 8) & 0xFF)]
+            ^ T1[((int) (s1 >>> 8) & 0xFF)]
+            ^ T2[((int) (s2 >>> 8) & 0xFF)]
+            ^ T3[((int) (s3 >>> 8) & 0xFF)]
+            ^ T4[((int) (s4 >>> 8) & 0xFF)]
+            ^ T5[((int) (s5 >>> 8) & 0xFF)]
+            ^ T6[((int) (s6 >>> 8) & 0xFF)]
+            ^ T7[((int) (s7 >>> 8) & 0xFF)];
+        out[7] = T0[(int) s0 & 0xFF]
+            ^ T1[(int) s1 & 0xFF]
+            ^ T2[(int) s2 & 0xFF]
+            ^ T3[(int) s3 & 0xFF]
+            ^ T4[(int) s4 & 0xFF]
+            ^ T5[(int) s5 & 0xFF]
+            ^ T6[(int) s6 & 0xFF]
+            ^ T7[(int) s7 & 0xFF];
+    }
+
+    /**
+     * a = a + b exactly as {@link Stribog256} adds vectors: the carry out of every byte is taken
+     * from a[i] + b[i] only, without the incoming carry. Kept as is so digests stay compatible.
+     */
+    static void add(long[] a, long[] b) {
+        long carry = 0;
+        for (int i = 7; i >= 0; i--) {
+            long x = a[i];
+            long y = b[i];
+            long sum = ((x & LOW7) + (y & LOW7)) ^ ((x ^ y) & HIGH);
+            long carries = ((x & y) | ((x ^ y) & ~sum)) & HIGH;
+            long inc = (carries << 1) | carry;
+            a[i] = ((sum & LOW7) + inc) ^ (sum & HIGH);
+            carry = carries >>> 63;
+        }
+    }
+
+    static void readBlock(byte[] data, int off, long[] m) {
+        for (int i = 0; i < 8; i++) {
+            long w = 0;
+            for (int j = 0; j < 8; j++) {
+                w = (w << 8) | (data[off + i * 8 + j] & 0xFF);
+            }
+            m[i] = w;
+        }
+    }
+
+    private static long[] toLongs(int[] vector) {
+        long[] result = new long[vector.length / 8];
+        for (int i = 0; i < vector.length; i++) {
+            result[i >> 3] = (result[i >> 3] << 8) | (vector[i] & 0xFF);
+        }
+        return result;
+    }
+
+    static {
+        for (int k = 0; k < 8; k++) {
+            for (int b = 0; b < 256; b++) {
+                int s = Data.SBox[b];
+                long v = 0;
+                for (int j = 0; j < 8; j++) {
+                    if ((s & (1 << (7 - j))) != 0) {
+                        v ^= toLongs(Data.A[k * 8 + j])[0];
+                    }
+                }
+                SLP[k][b] = v;
+            }
+        }
+        for (int i = 0; i < C.length; i++) {
+            C[i] = toLongs(Data.C[i]);
+        }
+        System.arraycopy(toLongs(Stribog256.IV), 0, IV, 0, 8);
+    }
+}
@@ -0,0 +1,38 @@
+package vuz.elgamal.hash;
+
+import java.math.BigInteger;
+
+/**
+ * Hash algorithm identifiers stored in detached signatures.
+ */
+public enum HashAlgorithm {
+
+    STRIBOG256(1),
+    /**
+     * Root of {@link Stribog256Tree}, chunk size is stored next to it.
+     */
+    STRIBOG256_TREE(2);
+
+    private final int id;
+
+    HashAlgorithm(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @param id identifier from signature.
+     * @return algorithm or null if identifier is unknown.
+     */
+    public static HashAlgorithm valueOf(BigInteger id) {
+        for (HashAlgorithm algorithm : values()) {
+            if (BigInteger.valueOf(algorithm.id).equals(id)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package vuz.elgamal.hash;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stribog256 of a file region with reading and hashing overlapped.
+ * A read-ahead thread fills buffers from the end of the region towards its start, the order {@link Stribog256Digest}
+ * needs, and passes them through a bounded queue to the calling thread, which compresses them.
+ * Empty buffers come back through a second queue, so no more than the given number of buffers exists
+ * and the reader waits when hashing falls behind.
+ *
+ * Every read is one large positional read. A memory-mapped file walked backwards gets no readahead from the kernel,
+ * its pages are read a few at a time on page faults while the CPU waits.
+ * Instances are thread-safe, every call has its own buffers.
+ */
+public class ReadAheadHasher {
+
+    public static final int DEFAULT_BUFFER_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_BUFFERS = 3;
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    private static final ExecutorService READERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stribog-read-ahead");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int bufferSize;
+    private final int buffers;
+
+    public ReadAheadHasher() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_BUFFERS);
+    }
+
+    /**
+     * @param bufferSize size of one read, a multiple of 64 keeps every compression inside one buffer.
+     * @param buffers number of buffers, at least 2: one is read while another one is hashed.
+     */
+    public ReadAheadHasher(int bufferSize, int buffers) {
+        if (bufferSize < FastStribog256.BLOCK_SIZE || buffers < 2) {
+            throw new IllegalArgumentException("At least two buffers of " + FastStribog256.BLOCK_SIZE + " bytes are needed");
+        }
+        this.bufferSize = bufferSize;
+        this.buffers = buffers;
+    }
+
+    /**
+     * @param channel file opened for reading.
+     * @param position start of the region.
+     * @param length region length.
+     * @return 256-bit hash of the region, same as {@link Stribog256Digest#update(FileChannel, long, long)}.
+     */
+    public byte[] hash(FileChannel channel, long position, long length) throws IOException {
+        BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(buffers);
+        BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>(buffers + 1);
+        for (int i = 0; i < buffers && i * (long) bufferSize < length; i++) {
+            free.add(ByteBuffer.allocate(bufferSize));
+        }
+        Reader reader = new Reader(channel, position, length, free, filled);
+        READERS.execute(reader);
+
+        Stribog256Digest digest = new Stribog256Digest();
+        try {
+            long remaining = length;
+            while (remaining > 0) {
+                ByteBuffer buffer = filled.take();
+                if (buffer == END) {
+                    throw reader.error;
+                }
+                remaining -= buffer.remaining();
+                digest.update(buffer);
+                buffer.clear();
+                free.add(buffer);
+            }
+            return digest.digest();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Hashing interrupted");
+        } finally {
+            reader.stop();
+        }
+    }
+
+    /*
+        Not interrupted on cancel: an interrupt during a read would close the caller's channel.
+        A stopped reader finishes the current read, then gets END instead of a free buffer.
+     */
+    private static final class Reader implements Runnable {
+
+        private final FileChannel channel;
+        private final long position;
+        private final long length;
+        private final BlockingQueue<ByteBuffer> free;
+        private final BlockingQueue<ByteBuffer> filled;
+        private volatile boolean stopped;
+        private volatile IOException error;
+
+        private Reader(FileChannel channel, long position, long length, BlockingQueue<ByteBuffer> free, BlockingQueue<ByteBuffer> filled) {
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+            this.free = free;
+            this.filled = filled;
+        }
+
+        @Override
+        public void run() {
+            long end = position + length;
+            try {
+                while (end > position) {
+                    ByteBuffer buffer = free.take();
+                    if (buffer == END || stopped) {
+                        return;
+                    }
+                    long start = Math.max(position, end - buffer.capacity());
+                    buffer.limit((int) (end - start));
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, start + buffer.position()) < 0) {
+                            throw new EOFException("Unexpected end of file");
+                        }
+                    }
+                    buffer.flip();
+                    filled.put(buffer);
+                    end = start;
+                }
+            } catch (IOException e) {
+                error = e;
+                filled.offer(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void stop() {
+            stopped = true;
+            free.offer(END);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package vuz.elgamal.hash;
+
+import java.util.List;
+
+/**
+ * Stribog256 of many small independent messages (manifests, metadata), for example before signing each of them.
+ * One engine with its scratch state serves the whole batch, so a message costs its compressions and the result array.
+ *
+ * Messages are hashed one after another. Table-driven compression is limited by the number of table lookups
+ * the CPU can issue, not by their latency, so interleaving several messages in lockstep does not make it faster.
+ * Digests are the same as {@link FastStribog256#getHash(byte[])}. Instances are not thread-safe.
+ */
+public class Stribog256Batch {
+
+    private final FastStribog256 engine = new FastStribog256();
+
+    /**
+     * @param messages messages to hash.
+     * @return hashes in the order of messages.
+     */
+    public byte[][] digest(List<byte[]> messages) {
+        byte[][] result = new byte[messages.size()][];
+        int i = 0;
+        for (byte[] message : messages) {
+            result[i++] = engine.getHash(message);
+        }
+        return result;
+    }
+
+    /**
+     * @param messages messages to hash.
+     * @return hashes in the order of messages.
+     */
+    public byte[][] digest(byte[]... messages) {
+        byte[][] result = new byte[messages.length][];
+        for (int i = 0; i < messages.length; i++) {
+            result[i] = engine.getHash(messages[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+package vuz.elgamal.hash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Incremental Stribog256 with constant memory: every full 64-byte block is compressed as soon as it arrives,
+ * only an incomplete block (at most 63 bytes) is kept between calls.
+ *
+ * Block order. Like {@link Stribog256#getHash()}, the message is treated as one big-endian number,
+ * so its LAST 64 bytes form the first block and the padded block is built from its first bytes.
+ * Therefore the message is supplied from its end towards its beginning: every {@code update} call passes
+ * the segment that immediately PRECEDES everything supplied before (bytes inside a segment keep their order).
+ * Example for message = s1 | s2 | s3: update(s3), update(s2), update(s1), digest().
+ * Passing the whole message in one call is always correct.
+ *
+ * Instances are not thread-safe.
+ */
+public class Stribog256Digest {
+
+    public static final int DIGEST_LENGTH = 32;
+
+    private static final int BLOCK_SIZE = FastStribog256.BLOCK_SIZE;
+    private static final int MAP_WINDOW = 64 * 1024 * 1024;
+
+    private final FastStribog256 engine = new FastStribog256();
+    private final long[] n = new long[8];
+    private final long[] sigma = new long[8];
+    private final long[] m = new long[8];
+    private final byte[] pending = new byte[BLOCK_SIZE];
+    private long[] h = FastStribog256.newState();
+    private int pendingLen;
+
+    /**
+     * Hash the whole message at once.
+     *
+     * @param message message.
+     * @return 256-bit hash.
+     */
+    public byte[] digest(byte[] message) {
+        update(message, 0, message.length);
+        return digest();
+    }
+
+    public void update(byte[] input) {
+        update(input, 0, input.length);
+    }
+
+    /**
+     * @param input array with the segment preceding previously supplied data.
+     * @param offset start of the segment.
+     * @param len segment length.
+     */
+    public void update(byte[] input, int offset, int len) {
+        if (offset < 0 || len < 0 || offset > input.length - len) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", len " + len + ", length " + input.length);
+        }
+        int end = offset + len;
+
+        if (pendingLen > 0) {
+            int take = Math.min(BLOCK_SIZE - pendingLen, len);
+            System.arraycopy(input, end - take, pending, BLOCK_SIZE - pendingLen - take, take);
+            pendingLen += take;
+            end -= take;
+            if (pendingLen == BLOCK_SIZE) {
+                FastStribog256.readBlock(pending, 0, m);
+                engine.compressBlock(h, n, sigma, m);
+                pendingLen = 0;
+            }
+        }
+        while (end - offset >= BLOCK_SIZE) {
+            FastStribog256.readBlock(input, end - BLOCK_SIZE, m);
+            engine.compressBlock(h, n, sigma, m);
+            end -= BLOCK_SIZE;
+        }
+        if (end > offset) {
+            pendingLen = end - offset;
+            System.arraycopy(input, offset, pending, BLOCK_SIZE - pendingLen, pendingLen);
+        }
+    }
+
+    /**
+     * Consumes remaining bytes of the buffer (position is moved to limit). Works with heap, direct and mapped buffers.
+     *
+     * @param input segment preceding previously supplied data.
+     */
+    public void update(ByteBuffer input) {
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+            return;
+        }
+        ByteBuffer buffer = input.duplicate().order(ByteOrder.BIG_ENDIAN);
+        int start = input.position();
+        int end = input.limit();
+
+        if (pendingLen > 0) {
+            int take = Math.min(BLOCK_SIZE - pendingLen, end - start);
+            buffer.position(end - take);
+            buffer.get(pending, BLOCK_SIZE - pendingLen - take, take);
+            pendingLen += take;
+            end -= take;
+            if (pendingLen == BLOCK_SIZE) {
+                FastStribog256.readBlock(pending, 0, m);
+                engine.compressBlock(h, n, sigma, m);
+                pendingLen = 0;
+            }
+        }
+        while (end - start >= BLOCK_SIZE) {
+            for (int i = 0; i < 8; i++) {
+                m[i] = buffer.getLong(end - BLOCK_SIZE + i * 8);
+            }
+            engine.compressBlock(h, n, sigma, m);
+            end -= BLOCK_SIZE;
+        }
+        if (end > start) {
+            pendingLen = end - start;
+            buffer.position(start);
+            buffer.get(pending, BLOCK_SIZE - pendingLen, pendingLen);
+        }
+        input.position(input.limit());
+    }
+
+    /**
+     * Hash a region of a file straight from memory-mapped windows, walking from the end of the region to its start.
+     * The region is a segment preceding previously supplied data, the heap usage does not depend on its size.
+     *
+     * @param channel file opened for reading.
+     * @param position start of the region.
+     * @param length region length, may exceed 2 GB.
+     */
+    public void update(FileChannel channel, long position, long length) throws IOException {
+        long end = position + length;
+
+        while (end > position) {
+            long start = Math.max(position, end - MAP_WINDOW);
+            update(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            end = start;
+        }
+    }
+
+    /**
+     * Finish hashing and reset the digest.
+     *
+     * @return 256-bit hash, same as {@link Stribog256#getHash()} for the whole message.
+     */
+    public byte[] digest() {
+        byte[] result = engine.finish(h, n, sigma, m, pending, BLOCK_SIZE - pendingLen, pendingLen);
+        reset();
+        return result;
+    }
+
+    public void reset() {
+        h = FastStribog256.newState();
+        Arrays.fill(n, 0);
+        Arrays.fill(sigma, 0);
+        Arrays.fill(pending, (byte) 0);
+        pendingLen = 0;
+    }
+}
@@ -0,0 +1,314 @@
+package vuz.elgamal.hash;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Merkle tree of Stribog256 digests for very large files, chunks are hashed in parallel.
+ * The message is split into chunks of chunkSize bytes, the last one may be shorter, an empty message is one empty chunk.
+ * leaf = Stribog256(0x00 | chunk), node = Stribog256(0x01 | left | right), so a leaf can not pass for a node.
+ * As in RFC 6962 the left subtree of n leaves holds the largest power of two less than n of them,
+ * the tree depends only on the message length and chunkSize.
+ *
+ * Every subtree is a fork-join task, a leaf maps its chunk and hashes it on its own worker.
+ * The root is not signed as is: {@link #signedDigest(long, byte[])} binds it to the chunk size and the message length
+ * under a tag of its own, so neither the parameters of the tree nor its inner nodes can pass for the signed value.
+ *
+ * Digests of all nodes can be kept in pre-order: the root, then the left subtree, then the right one.
+ * A subtree of k leaves takes 2k - 1 entries, so the node of any subtree is found walking down from the root.
+ * With them a byte range is checked by hashing only its chunks, the rest of the path to the root is taken from storage.
+ */
+public class Stribog256Tree {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    public static final int MIN_CHUNK_SIZE = 1 << 10;
+    public static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    private static final byte[] LEAF = {0x00};
+    private static final byte NODE = 0x01;
+    private static final byte[] SIGNED_TAG = "vuz.elgamal.Stribog256Tree.v1".getBytes(StandardCharsets.US_ASCII);
+
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public Stribog256Tree() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize power of two from {@link #MIN_CHUNK_SIZE} to {@link #MAX_CHUNK_SIZE}.
+     */
+    public Stribog256Tree(int chunkSize) {
+        this(chunkSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param chunkSize power of two from {@link #MIN_CHUNK_SIZE} to {@link #MAX_CHUNK_SIZE}.
+     * @param pool workers hashing the chunks.
+     */
+    public Stribog256Tree(int chunkSize, ForkJoinPool pool) {
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two from " + MIN_CHUNK_SIZE + " to " + MAX_CHUNK_SIZE);
+        }
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param length message length.
+     * @return number of leaves.
+     */
+    public long chunks(long length) {
+        return Math.max(1, (length + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * @param chunks number of leaves.
+     * @return number of nodes, leaves included.
+     */
+    public static long nodeCount(long chunks) {
+        return 2 * chunks - 1;
+    }
+
+    /**
+     * @param message whole message.
+     * @return root of the tree.
+     */
+    public byte[] root(byte[] message) {
+        long chunks = chunks(message.length);
+        return pool.invoke(new Subtree(0, chunks, 0, new Scope(0, chunks - 1, null, null), index -> {
+            int start = (int) (index * chunkSize);
+            return leaf(message, start, Math.min(chunkSize, message.length - start));
+        }));
+    }
+
+    /**
+     * @param channel file opened for reading.
+     * @param length number of bytes from the start of the file.
+     * @return root of the tree.
+     */
+    public byte[] root(FileChannel channel, long length) throws IOException {
+        long chunks = chunks(length);
+        return invoke(channel, length, new Scope(0, chunks - 1, null, null));
+    }
+
+    /**
+     * Digests of all nodes of the tree in pre-order, the root is the first one.
+     *
+     * @param channel file opened for reading.
+     * @param length number of bytes from the start of the file.
+     * @return {@link #nodeCount(long)} digests.
+     */
+    public byte[][] nodes(FileChannel channel, long length) throws IOException {
+        long chunks = chunks(length);
+        byte[][] nodes = new byte[Math.toIntExact(nodeCount(chunks))][];
+        invoke(channel, length, new Scope(0, chunks - 1, nodes, null));
+        return nodes;
+    }
+
+    /**
+     * Root recomputed from the chunks overlapping the range and the stored digests of all other subtrees.
+     * It matches the signed root only if the range is intact and the stored digests on its path are genuine.
+     *
+     * @param channel file opened for reading.
+     * @param length length of the whole message.
+     * @param nodes stored digests from {@link #nodes(FileChannel, long)}.
+     * @param offset start of the range.
+     * @param rangeLength length of the range, positive.
+     * @return root of the tree.
+     * @throws IllegalArgumentException if the range is empty or outside of the message, or the number of nodes is wrong.
+     */
+    public byte[] root(FileChannel channel, long length, byte[][] nodes, long offset, long rangeLength) throws IOException {
+        if (nodes.length != nodeCount(chunks(length))) {
+            throw new IllegalArgumentException("Tree of " + length + " bytes has " + nodeCount(chunks(length)) + " nodes");
+        }
+        ByteBuffer joined = ByteBuffer.allocate(nodes.length * Stribog256Digest.DIGEST_LENGTH);
+        for (byte[] node : nodes) {
+            joined.put(node);
+        }
+        joined.flip();
+        return root(channel, length, joined, offset, rangeLength);
+    }
+
+    /**
+     * Same as {@link #root(FileChannel, long, byte[][], long, long)} with the stored digests joined in one buffer,
+     * as they are kept in a signature. Only the digests of subtrees next to the path of the range are read,
+     * so the cost does not grow with the number of stored nodes.
+     *
+     * @param channel file opened for reading.
+     * @param length length of the whole message.
+     * @param nodes stored digests in pre-order, 32 bytes each, from the position to the limit. The buffer is not changed.
+     * @param offset start of the range.
+     * @param rangeLength length of the range, positive.
+     * @return root of the tree.
+     * @throws IllegalArgumentException if the range is empty or outside of the message, or the number of nodes is wrong.
+     */
+    public byte[] root(FileChannel channel, long length, ByteBuffer nodes, long offset, long rangeLength) throws IOException {
+        if (offset < 0 || rangeLength <= 0 || offset > length - rangeLength) {
+            throw new IllegalArgumentException("Range " + offset + "+" + rangeLength + " is outside of " + length + " bytes");
+        }
+        long count = nodeCount(chunks(length));
+        if (nodes.remaining() != count * Stribog256Digest.DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Tree of " + length + " bytes has " + count + " nodes");
+        }
+        return invoke(channel, length, new Scope(offset / chunkSize, (offset + rangeLength - 1) / chunkSize, null, nodes.slice()));
+    }
+
+    private byte[] invoke(FileChannel channel, long length, Scope scope) throws IOException {
+        try {
+            return pool.invoke(new Subtree(0, chunks(length), 0, scope, index -> {
+                long start = index * chunkSize;
+                return leaf(channel, start, Math.min(chunkSize, length - start));
+            }));
+        } catch (UncheckedIOException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Value signed by a tree signature: Stribog256(tag | chunkSize | length | root), numbers are big-endian.
+     * Verification recomputes it from the chunk size and length stored in the signature, so they can not be changed.
+     *
+     * @param length message length.
+     * @param root root of the tree of the message.
+     * @return 256-bit digest to sign.
+     */
+    public byte[] signedDigest(long length, byte[] root) {
+        ByteBuffer data = ByteBuffer.allocate(SIGNED_TAG.length + Integer.BYTES + Long.BYTES + root.length)
+            .put(SIGNED_TAG)
+            .putInt(chunkSize)
+            .putLong(length)
+            .put(root);
+        return new Stribog256Digest().digest(data.array());
+    }
+
+    /**
+     * @param chunk array with the chunk.
+     * @param offset start of the chunk.
+     * @param length chunk length.
+     * @return leaf digest.
+     */
+    public static byte[] leaf(byte[] chunk, int offset, int length) {
+        Stribog256Digest digest = new Stribog256Digest();
+        digest.update(chunk, offset, length);
+        digest.update(LEAF);
+        return digest.digest();
+    }
+
+    /**
+     * @param left digest of the left subtree.
+     * @param right digest of the right subtree.
+     * @return digest of the node.
+     */
+    public static byte[] node(byte[] left, byte[] right) {
+        byte[] data = new byte[1 + left.length + right.length];
+        data[0] = NODE;
+        System.arraycopy(left, 0, data, 1, left.length);
+        System.arraycopy(right, 0, data, 1 + left.length, right.length);
+        return new Stribog256Digest().digest(data);
+    }
+
+    private static byte[] leaf(FileChannel channel, long position, long length) {
+        Stribog256Digest digest = new Stribog256Digest();
+        try {
+            digest.update(channel, position, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        digest.update(LEAF);
+        return digest.digest();
+    }
+
+    /*
+        A task failed on another worker is rethrown as a copy, the original exception is somewhere in the causes.
+     */
+    private static IOException unwrap(UncheckedIOException e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof IOException)) {
+            cause = cause.getCause();
+        }
+        return cause != null ? (IOException) cause : e.getCause();
+    }
+
+    private interface Leaves {
+
+        byte[] leaf(long index);
+    }
+
+    /*
+        Chunks first..last are hashed, digests of subtrees outside of them are read from stored.
+        With recorded every computed digest is stored there.
+     */
+    private static final class Scope {
+
+        private final long first;
+        private final long last;
+        private final byte[][] recorded;
+        private final ByteBuffer stored;
+
+        private Scope(long first, long last, byte[][] recorded, ByteBuffer stored) {
+            this.first = first;
+            this.last = last;
+            this.recorded = recorded;
+            this.stored = stored;
+        }
+
+        private byte[] stored(long position) {
+            byte[] digest = new byte[Stribog256Digest.DIGEST_LENGTH];
+            ByteBuffer node = stored.duplicate();
+            node.position((int) (position * Stribog256Digest.DIGEST_LENGTH));
+            node.get(digest);
+            return digest;
+        }
+    }
+
+    private static final class Subtree extends RecursiveTask<byte[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final long position;
+        private final Scope scope;
+        private final Leaves leaves;
+
+        private Subtree(long from, long to, long position, Scope scope, Leaves leaves) {
+            this.from = from;
+            this.to = to;
+            this.position = position;
+            this.scope = scope;
+            this.leaves = leaves;
+        }
+
+        @Override
+        protected byte[] compute() {
+            if (to <= scope.first || from > scope.last) {
+                return scope.stored(position);
+            }
+            long count = to - from;
+            byte[] hash;
+            if (count == 1) {
+                hash = leaves.leaf(from);
+            } else {
+                long split = Long.highestOneBit(count - 1);
+                Subtree left = new Subtree(from, from + split, position + 1, scope, leaves);
+                left.fork();
+                byte[] right = new Subtree(from + split, to, position + 2 * split, scope, leaves).compute();
+                hash = node(left.join(), right);
+            }
+            if (scope.recorded != null) {
+                scope.recorded[(int) position] = hash;
+            }
+            return hash;
+        }
+    }
+}
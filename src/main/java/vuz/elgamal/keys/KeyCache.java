@@ -0,0 +1,290 @@
+package vuz.elgamal.keys;
+
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.utils.ParamsContainer;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of parsed keys, for signing with many key files.
+ * An entry is keyed by the key file path and stays valid while the file keeps its modification time and size,
+ * so a lookup costs one stat instead of reading and parsing the file.
+ * Keys optionally get their fixed-base tables at load time and keep them while cached.
+ *
+ * Private keys are handed out as {@link Lease}s. An evicted, outdated or invalidated private key is destroyed
+ * (its nonces are discarded and it refuses to sign) once the last lease on it is closed, so a key is never destroyed
+ * under a caller still signing with it. Public keys hold no secret and are returned as is.
+ *
+ * The cache is meant for library use with many key files, see {@link vuz.elgamal.DigitalSignature#DigitalSignature(KeyCache)}.
+ * The command line parses one key per run, the server and batch mode keep their single key resident, so none of them uses it.
+ */
+public class KeyCache implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final boolean precompute;
+    private final LinkedHashMap<EntryKey, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public KeyCache() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * @param capacity max number of cached keys.
+     * @param precompute build fixed-base tables for every loaded key.
+     */
+    public KeyCache(int capacity, boolean precompute) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.precompute = precompute;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @param file file with private key.
+     * @return lease on the parsed private key, from the cache if the file has not changed. Close it when signing is done.
+     */
+    public Lease leasePrivateKey(Path file) throws IOException, FileCorruptedOrFalsify {
+        return new Lease(get(file, true, true));
+    }
+
+    /**
+     * @param file file with public key.
+     * @return parsed public key, from the cache if the file has not changed.
+     */
+    public PublicKey publicKey(Path file) throws IOException, FileCorruptedOrFalsify {
+        return (PublicKey) get(file, false, false).key;
+    }
+
+    /**
+     * Drop both keys of the file. The private one is destroyed when its last lease is closed.
+     *
+     * @param file key file.
+     */
+    public void invalidate(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        List<Entry> destroyed = new ArrayList<>();
+        synchronized (entries) {
+            retire(entries.remove(new EntryKey(path, true)), destroyed);
+            retire(entries.remove(new EntryKey(path, false)), destroyed);
+        }
+        destroyed.forEach(KeyCache::destroy);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Drop every key. Private ones are destroyed now or, if leased, when their last lease is closed.
+     */
+    @Override
+    public void close() {
+        List<Entry> destroyed = new ArrayList<>();
+        synchronized (entries) {
+            entries.values().forEach(entry -> retire(entry, destroyed));
+            entries.clear();
+        }
+        destroyed.forEach(KeyCache::destroy);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Keys: %d, hits: %d, misses: %d, evictions: %d", size(), getHits(), getMisses(), getEvictions());
+    }
+
+    /*
+        Files are read outside the lock, so concurrent misses on one file may both load it,
+        the first one stored wins and the other copy is destroyed before anyone sees it.
+        With lease the entry is leased under the same lock it is found or stored under, so it can not be destroyed in between.
+     */
+    private Entry get(Path file, boolean secret, boolean lease) throws IOException, FileCorruptedOrFalsify {
+        Path path = file.toAbsolutePath().normalize();
+        EntryKey entryKey = new EntryKey(path, secret);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+        synchronized (entries) {
+            Entry entry = entries.get(entryKey);
+            if (entry != null && entry.matches(attributes)) {
+                hits.incrementAndGet();
+                return lease ? entry.lease() : entry;
+            }
+        }
+        misses.incrementAndGet();
+
+        Entry loaded = new Entry(attributes, load(path, secret));
+        Entry result = loaded;
+        List<Entry> destroyed = new ArrayList<>();
+        synchronized (entries) {
+            Entry current = entries.get(entryKey);
+            if (current != null && current.matches(attributes)) {
+                destroyed.add(loaded);
+                result = current;
+            } else {
+                retire(entries.put(entryKey, loaded), destroyed);
+                Iterator<Entry> eldest = entries.values().iterator();
+                while (entries.size() > capacity) {
+                    retire(eldest.next(), destroyed);
+                    eldest.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+            if (lease) {
+                result.lease();
+            }
+        }
+        destroyed.forEach(KeyCache::destroy);
+        return result;
+    }
+
+    /*
+        Called under the lock for an entry leaving the map: it is destroyed now if nobody holds it, otherwise by the last release.
+     */
+    private static void retire(Entry entry, List<Entry> destroyed) {
+        if (entry != null) {
+            entry.retired = true;
+            if (entry.leases == 0) {
+                destroyed.add(entry);
+            }
+        }
+    }
+
+    private void release(Entry entry) {
+        boolean destroy;
+        synchronized (entries) {
+            destroy = --entry.leases == 0 && entry.retired;
+        }
+        if (destroy) {
+            destroy(entry);
+        }
+    }
+
+    private Object load(Path path, boolean secret) throws IOException, FileCorruptedOrFalsify {
+        Map<String, BigInteger> params = ParamsContainer.read(Files.readAllBytes(path));
+        if (secret) {
+            PrivateKey key = PrivateKey.fromParams(params);
+            return precompute ? key.precompute() : key;
+        }
+        PublicKey key = PublicKey.fromParams(params);
+        return precompute ? key.precompute() : key;
+    }
+
+    private static void destroy(Entry entry) {
+        if (entry.key instanceof PrivateKey) {
+            ((PrivateKey) entry.key).destroy();
+        }
+    }
+
+    /**
+     * Use of a cached private key. The key stays intact until the lease is closed, even if the cache drops it meanwhile.
+     * A lease is closed once, by the thread that took it.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public PrivateKey getKey() {
+            if (closed) {
+                throw new IllegalStateException("Lease closed");
+            }
+            return (PrivateKey) entry.key;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    private static final class EntryKey {
+
+        private final Path path;
+        private final boolean secret;
+
+        private EntryKey(Path path, boolean secret) {
+            this.path = path;
+            this.secret = secret;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof EntryKey)) {
+                return false;
+            }
+            EntryKey other = (EntryKey) o;
+            return secret == other.secret && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, secret);
+        }
+    }
+
+    private static final class Entry {
+
+        private final FileTime modified;
+        private final long size;
+        private final Object key;
+        private int leases;
+        private boolean retired;
+
+        private Entry(BasicFileAttributes attributes, Object key) {
+            this.modified = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.key = key;
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return modified.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+
+        private Entry lease() {
+            leases++;
+            return this;
+        }
+    }
+}
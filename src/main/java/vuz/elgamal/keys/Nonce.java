@@ -0,0 +1,68 @@
+package vuz.elgamal.keys;
+
+import vuz.elgamal.math.ModInverse;
+import vuz.elgamal.utils.PrimeUtils;
+
+import java.math.BigInteger;
+
+/**
+ * One-time signing nonce of a private key: a = g^r mod p and r^-1 mod (p - 1), all the signing work
+ * that does not depend on the message. r itself is dropped right after both values are computed.
+ * A nonce is single-use: the inverse can be taken only once, then the nonce lets go of it, so it signs exactly one message.
+ * Nothing is overwritten, the values are immutable BigIntegers and stay in memory until collected.
+ */
+public final class Nonce {
+
+    private final BigInteger a;
+    private BigInteger inverse;
+
+    private Nonce(BigInteger a, BigInteger inverse) {
+        this.a = a;
+        this.inverse = inverse;
+    }
+
+    /**
+     * @param key private key.
+     * @return fresh nonce with random r coprime to p - 1.
+     */
+    public static Nonce generate(PrivateKey key) {
+        BigInteger n = key.getP().subtract(BigInteger.ONE);
+        BigInteger max = n.subtract(BigInteger.ONE);
+        BigInteger r;
+        BigInteger inverse;
+        do {
+            r = PrimeUtils.generateBigIntegerInRange(BigInteger.ONE, max);
+            inverse = ModInverse.inverse(r, n);
+        } while (inverse == null);
+        return new Nonce(key.powG(r), inverse);
+    }
+
+    /**
+     * @return a = g^r mod p, first part of the signature.
+     */
+    public BigInteger getA() {
+        return a;
+    }
+
+    /**
+     * Take r^-1 mod (p - 1), the nonce cannot be used again.
+     *
+     * @return r^-1 mod (p - 1).
+     * @throws IllegalStateException if the nonce has already been used or discarded.
+     */
+    public synchronized BigInteger takeInverse() {
+        if (inverse == null) {
+            throw new IllegalStateException("Nonce already used");
+        }
+        BigInteger result = inverse;
+        inverse = null;
+        return result;
+    }
+
+    /**
+     * Drop the secret part without using it.
+     */
+    public synchronized void discard() {
+        inverse = null;
+    }
+}
@@ -0,0 +1,137 @@
+package vuz.elgamal.keys;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background pool of {@link Nonce}s for one private key.
+ * A low-priority daemon thread keeps up to depth nonces ready and is woken up when the pool drops
+ * to the refill watermark, so online signing is one hash and a few multiplications.
+ * When the pool is empty the nonce is computed by the caller, signing never waits for the refill thread.
+ * Every nonce leaves the pool once; nonces left on close are discarded.
+ *
+ * Thread-safe.
+ */
+public class NoncePool implements AutoCloseable {
+
+    public static final int DEFAULT_DEPTH = 64;
+    public static final int DEFAULT_WATERMARK = 16;
+
+    private final PrivateKey key;
+    private final int depth;
+    private final int watermark;
+    private final BlockingQueue<Nonce> nonces;
+    private final ExecutorService refiller;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Starts filling the pool right away.
+     *
+     * @param key private key.
+     * @param depth max number of ready nonces.
+     * @param watermark refill starts when at most this many nonces are left, less than depth.
+     */
+    public NoncePool(PrivateKey key, int depth, int watermark) {
+        if (depth < 1 || watermark < 0 || watermark >= depth) {
+            throw new IllegalArgumentException("Pool depth must be positive and watermark in [0, depth)");
+        }
+        this.key = key;
+        this.depth = depth;
+        this.watermark = watermark;
+        this.nonces = new ArrayBlockingQueue<>(depth);
+        this.refiller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nonce-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        refill();
+    }
+
+    /**
+     * @return ready nonce, or a nonce computed in place if the pool is empty.
+     */
+    public Nonce take() {
+        Nonce nonce = nonces.poll();
+        if (nonces.size() <= watermark) {
+            refill();
+        }
+        if (nonce == null) {
+            misses.increment();
+            nonce = Nonce.generate(key);
+        }
+        return nonce;
+    }
+
+    /**
+     * @return number of ready nonces.
+     */
+    public int size() {
+        return nonces.size();
+    }
+
+    /**
+     * @return how many times the pool was empty and the caller computed the nonce itself.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWatermark() {
+        return watermark;
+    }
+
+    private void refill() {
+        if (!closed && refilling.compareAndSet(false, true)) {
+            try {
+                refiller.execute(this::fill);
+            } catch (RejectedExecutionException e) {
+                refilling.set(false);
+            }
+        }
+    }
+
+    private void fill() {
+        try {
+            while (!closed && nonces.size() < depth) {
+                Nonce nonce = Nonce.generate(key);
+                if (closed || !nonces.offer(nonce)) {
+                    nonce.discard();
+                    break;
+                }
+            }
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    /**
+     * Stop the refill thread and discard all nonces left in the pool.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        refiller.shutdownNow();
+        try {
+            refiller.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Nonce nonce;
+        while ((nonce = nonces.poll()) != null) {
+            nonce.discard();
+        }
+    }
+}
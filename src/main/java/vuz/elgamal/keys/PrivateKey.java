@@ -0,0 +1,146 @@
+package vuz.elgamal.keys;
+
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.math.FixedBaseExp;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Parsed private key (p, g, x). May be shared between threads.
+ * Optionally keeps fixed-base table for g, built once and reused by every signature,
+ * and a {@link NoncePool} that prepares nonces in background.
+ * {@link #destroy()} drops x, so the key can not sign afterwards. Nothing is overwritten: x is an immutable BigInteger,
+ * the caller's copy and the parsed params stay in memory until collected.
+ */
+public class PrivateKey {
+
+    private final BigInteger p;
+    private final BigInteger g;
+    private BigInteger x;
+    private volatile FixedBaseExp gPowers;
+    private volatile NoncePool noncePool;
+
+    public PrivateKey(BigInteger p, BigInteger g, BigInteger x) {
+        this.p = p;
+        this.g = g;
+        this.x = x;
+    }
+
+    /**
+     * @param params params parsed from private key file.
+     * @return private key.
+     */
+    public static PrivateKey fromParams(Map<String, BigInteger> params) throws FileCorruptedOrFalsify {
+        if (params.get("P") == null || params.get("G") == null || params.get("X") == null) {
+            throw new FileCorruptedOrFalsify("Private key corrupted!");
+        }
+        return new PrivateKey(params.get("P"), params.get("G"), params.get("X"));
+    }
+
+    /**
+     * Build fixed-base table for g with default memory budget.
+     *
+     * @return this key.
+     */
+    public PrivateKey precompute() {
+        return precompute(FixedBaseExp.DEFAULT_MEMORY);
+    }
+
+    /**
+     * Build fixed-base table for g. Worth it when the key signs many files.
+     * Table is built once, later calls do nothing.
+     *
+     * @param maxBytes memory budget for the table.
+     * @return this key.
+     */
+    public PrivateKey precompute(long maxBytes) {
+        if (gPowers == null) {
+            synchronized (this) {
+                if (gPowers == null) {
+                    gPowers = FixedBaseExp.withMemory(g, p, p.bitLength(), maxBytes);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Start background nonce pool, later calls do nothing until {@link #stopNoncePool()}.
+     *
+     * @param depth max number of ready nonces.
+     * @param watermark refill starts when at most this many nonces are left.
+     * @return this key.
+     */
+    public synchronized PrivateKey startNoncePool(int depth, int watermark) {
+        if (noncePool == null) {
+            noncePool = new NoncePool(this, depth, watermark);
+        }
+        return this;
+    }
+
+    /**
+     * Stop the nonce pool and discard unused nonces.
+     */
+    public synchronized void stopNoncePool() {
+        if (noncePool != null) {
+            noncePool.close();
+            noncePool = null;
+        }
+    }
+
+    /**
+     * @return nonce from the pool if it is started, otherwise a freshly computed one.
+     */
+    public Nonce nextNonce() {
+        NoncePool pool = noncePool;
+        return pool == null ? Nonce.generate(this) : pool.take();
+    }
+
+    /**
+     * @return nonce pool or null if it is not started.
+     */
+    public NoncePool getNoncePool() {
+        return noncePool;
+    }
+
+    /**
+     * @param exponent exponent.
+     * @return g^exponent mod p.
+     */
+    public BigInteger powG(BigInteger exponent) {
+        FixedBaseExp powers = gPowers;
+        return powers == null ? g.modPow(exponent, p) : powers.pow(exponent);
+    }
+
+    public BigInteger getP() {
+        return p;
+    }
+
+    public BigInteger getG() {
+        return g;
+    }
+
+    /**
+     * @return secret exponent x.
+     * @throws IllegalStateException if the key has been destroyed.
+     */
+    public synchronized BigInteger getX() {
+        if (x == null) {
+            throw new IllegalStateException("Private key destroyed");
+        }
+        return x;
+    }
+
+    /**
+     * Stop the nonce pool, discarding unused nonces, and drop x. The key cannot sign afterwards.
+     */
+    public synchronized void destroy() {
+        stopNoncePool();
+        x = null;
+    }
+
+    public synchronized boolean isDestroyed() {
+        return x == null;
+    }
+}
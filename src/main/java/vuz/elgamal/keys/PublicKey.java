@@ -0,0 +1,131 @@
+package vuz.elgamal.keys;
+
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.math.FixedBaseExp;
+import vuz.elgamal.math.Montgomery;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Parsed public key (p, g, y). May be shared between threads.
+ * Optionally keeps fixed-base tables for g and y, built once and reused by every verification.
+ */
+public class PublicKey {
+
+    private final BigInteger p;
+    private final BigInteger g;
+    private final BigInteger y;
+    private volatile FixedBaseExp gPowers;
+    private volatile FixedBaseExp yPowers;
+    private final ThreadLocal<Montgomery.Workspace> workspaces = new ThreadLocal<>();
+
+    public PublicKey(BigInteger p, BigInteger g, BigInteger y) {
+        this.p = p;
+        this.g = g;
+        this.y = y;
+    }
+
+    /**
+     * @param params params parsed from public key file.
+     * @return public key.
+     */
+    public static PublicKey fromParams(Map<String, BigInteger> params) throws FileCorruptedOrFalsify {
+        if (params.get("P") == null || params.get("G") == null || params.get("Y") == null) {
+            throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+        }
+        return new PublicKey(params.get("P"), params.get("G"), params.get("Y"));
+    }
+
+    /**
+     * Build fixed-base tables for g and y with default memory budget.
+     *
+     * @return this key.
+     */
+    public PublicKey precompute() {
+        return precompute(FixedBaseExp.DEFAULT_MEMORY);
+    }
+
+    /**
+     * Build fixed-base tables for g and y. Worth it when the key verifies many signatures.
+     * Tables are built once, later calls do nothing.
+     *
+     * @param maxBytes memory budget for both tables.
+     * @return this key.
+     */
+    public PublicKey precompute(long maxBytes) {
+        if (gPowers == null) {
+            synchronized (this) {
+                if (gPowers == null) {
+                    yPowers = FixedBaseExp.withMemory(y, p, p.bitLength(), maxBytes / 2);
+                    gPowers = FixedBaseExp.withMemory(g, p, p.bitLength(), maxBytes / 2);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param exponent exponent.
+     * @return g^exponent mod p.
+     */
+    public BigInteger powG(BigInteger exponent) {
+        FixedBaseExp powers = gPowers;
+        return powers == null ? g.modPow(exponent, p) : powers.pow(exponent);
+    }
+
+    /**
+     * @param exponent exponent.
+     * @return y^exponent mod p.
+     */
+    public BigInteger powY(BigInteger exponent) {
+        FixedBaseExp powers = yPowers;
+        return powers == null ? y.modPow(exponent, p) : powers.pow(exponent);
+    }
+
+    /**
+     * Check g^h = y^a * a^b mod p. With precomputed tables both sides stay in Montgomery form,
+     * only a^b goes through {@link BigInteger#modPow}.
+     *
+     * @param h hash of the message.
+     * @param a first part of the signature.
+     * @param b second part of the signature.
+     * @return true if the equation holds.
+     */
+    public boolean checkEquation(BigInteger h, BigInteger a, BigInteger b) {
+        if (a.signum() <= 0 || a.compareTo(p) >= 0 || b.signum() < 0 || h.signum() < 0) {
+            return false;
+        }
+        FixedBaseExp powersG = gPowers;
+        FixedBaseExp powersY = yPowers;
+        if (powersG == null || h.bitLength() > p.bitLength()) {
+            BigInteger right = powY(a).multiply(a.modPow(b, p)).mod(p);
+            return powG(h).equals(right);
+        }
+        Montgomery montgomery = powersG.getMontgomery();
+        Montgomery.Workspace workspace = workspaces.get();
+        if (workspace == null) {
+            workspace = montgomery.newWorkspace();
+            workspaces.set(workspace);
+        }
+        long[] left = new long[montgomery.size()];
+        long[] right = new long[montgomery.size()];
+        powersG.pow(h, left, workspace);
+        powersY.pow(a, right, workspace);
+        montgomery.multiply(right, montgomery.toMontgomery(a.modPow(b, p)), right, workspace.scratch());
+        return Arrays.equals(left, right);
+    }
+
+    public BigInteger getP() {
+        return p;
+    }
+
+    public BigInteger getG() {
+        return g;
+    }
+
+    public BigInteger getY() {
+        return y;
+    }
+}
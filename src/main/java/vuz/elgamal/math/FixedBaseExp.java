@@ -0,0 +1,150 @@
+package vuz.elgamal.math;
+
+import java.math.BigInteger;
+
+/**
+ * Exponentiation with a fixed base and modulus.
+ * Exponent is split into w-bit digits d_i, table[i][d] = base^(d * 2^(w * i)) mod m is computed once,
+ * so base^e = product of table[i][d_i]: about bits / w multiplications and no squarings per call.
+ * Table is kept in Montgomery form, products are reduced without division (modulus must be odd).
+ * Exponents longer than the table fall back to {@link BigInteger#modPow}.
+ *
+ * Immutable after construction, may be shared between threads.
+ */
+public class FixedBaseExp {
+
+    /** Default table budget, enough for window 8 with 512-bit modulus. */
+    public static final long DEFAULT_MEMORY = 4L * 1024 * 1024;
+
+    private static final int MAX_WINDOW = 12;
+    private static final int ARRAY_OVERHEAD = 24;
+
+    private final BigInteger base;
+    private final BigInteger modulus;
+    private final int window;
+    private final int maxBits;
+    private final Montgomery montgomery;
+    private final long[][][] table;
+    private final ThreadLocal<Montgomery.Workspace> workspaces;
+
+    /**
+     * @param base fixed base.
+     * @param modulus modulus.
+     * @param maxBits max bit length of exponents served from the table.
+     * @param window digit width in bits, table keeps ceil(maxBits / window) * (2^window - 1) numbers.
+     */
+    public FixedBaseExp(BigInteger base, BigInteger modulus, int maxBits, int window) {
+        this.base = base;
+        this.modulus = modulus;
+        this.window = window;
+        this.maxBits = maxBits;
+        this.montgomery = new Montgomery(modulus);
+        this.workspaces = ThreadLocal.withInitial(montgomery::newWorkspace);
+
+        int digits = (maxBits + window - 1) / window;
+        long[] scratch = new long[montgomery.size() + 2];
+        long[] power = montgomery.toMontgomery(base);
+        table = new long[digits][1 << window][];
+        for (int i = 0; i < digits; i++) {
+            long[][] row = table[i];
+            row[0] = montgomery.one();
+            row[1] = power;
+            for (int d = 2; d < row.length; d++) {
+                row[d] = new long[montgomery.size()];
+                montgomery.multiply(row[d - 1], power, row[d], scratch);
+            }
+            power = new long[montgomery.size()];
+            montgomery.multiply(row[row.length - 1], row[1], power, scratch);
+        }
+    }
+
+    /**
+     * Table with the widest window that fits into the memory budget.
+     *
+     * @param base fixed base.
+     * @param modulus modulus.
+     * @param maxBits max bit length of exponents served from the table.
+     * @param maxBytes memory budget for the table.
+     * @return fixed-base exponentiation.
+     */
+    public static FixedBaseExp withMemory(BigInteger base, BigInteger modulus, int maxBits, long maxBytes) {
+        int window = 1;
+        while (window < MAX_WINDOW && tableBytes(modulus, maxBits, window + 1) <= maxBytes) {
+            window++;
+        }
+        return new FixedBaseExp(base, modulus, maxBits, window);
+    }
+
+    /**
+     * @return approximate heap size of a table with given params.
+     */
+    public static long tableBytes(BigInteger modulus, int maxBits, int window) {
+        long digits = (maxBits + window - 1) / window;
+        return digits * (1L << window) * ((modulus.bitLength() + 63) / 64 * 8 + ARRAY_OVERHEAD);
+    }
+
+    /**
+     * @param exponent non-negative exponent.
+     * @return base^exponent mod modulus.
+     */
+    public BigInteger pow(BigInteger exponent) {
+        if (exponent.signum() < 0 || exponent.bitLength() > maxBits) {
+            return base.modPow(exponent, modulus);
+        }
+        long[] result = new long[montgomery.size()];
+        Montgomery.Workspace workspace = workspaces.get();
+        pow(exponent, result, workspace);
+        montgomery.fromMontgomery(result, result, workspace.scratch());
+        return Montgomery.toBigInteger(result);
+    }
+
+    /**
+     * Allocation-free variant for callers that keep working in Montgomery form.
+     *
+     * @param exponent non-negative exponent, at most maxBits long.
+     * @param out base^exponent in Montgomery form of {@link #getMontgomery()}.
+     * @param workspace scratch of the calling thread.
+     */
+    public void pow(BigInteger exponent, long[] out, Montgomery.Workspace workspace) {
+        if (exponent.signum() < 0 || exponent.bitLength() > maxBits) {
+            throw new IllegalArgumentException("Exponent out of table range");
+        }
+        long[] scratch = workspace.scratch();
+        int digits = (exponent.bitLength() + window - 1) / window;
+
+        System.arraycopy(montgomery.one(), 0, out, 0, out.length);
+        for (int i = 0; i < digits; i++) {
+            int digit = digit(exponent, i * window, window);
+            if (digit != 0) {
+                montgomery.multiply(out, table[i][digit], out, scratch);
+            }
+        }
+    }
+
+    /*
+        bits [from, from + width) of a non-negative number, bits past the end are zero.
+     */
+    static int digit(BigInteger exponent, int from, int width) {
+        int digit = 0;
+        for (int j = width - 1; j >= 0; j--) {
+            digit = (digit << 1) | (exponent.testBit(from + j) ? 1 : 0);
+        }
+        return digit;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public BigInteger getBase() {
+        return base;
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    public Montgomery getMontgomery() {
+        return montgomery;
+    }
+}
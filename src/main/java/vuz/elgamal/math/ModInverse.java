@@ -0,0 +1,222 @@
+package vuz.elgamal.math;
+
+import java.math.BigInteger;
+
+/**
+ * Modular inverse by Kaliski's almost inverse, an iterative binary extended Euclidean algorithm
+ * on mutable 64-bit limbs. The loop only shifts, adds and subtracts in place. The 2^k factor it leaves
+ * is divided out afterwards one 64-bit word at a time, the same way as Montgomery reduction.
+ * The same pass tells whether the inverse exists at all, so callers need no separate gcd check.
+ *
+ * Binary inversion needs an odd modulus. For an even modulus n and odd a the roles are swapped:
+ * y = n^-1 mod a is found first, then a^-1 mod n = n - (n * y - 1) / a.
+ */
+public class ModInverse {
+
+    /**
+     * @param a number to invert, 0 < a.
+     * @param n modulus, n > 1.
+     * @return a^-1 mod n, or null if gcd(a, n) != 1.
+     */
+    public static BigInteger inverse(BigInteger a, BigInteger n) {
+        if (n.testBit(0)) {
+            return oddInverse(a.mod(n), n);
+        }
+        if (!a.testBit(0)) {
+            return null;
+        }
+        BigInteger y = oddInverse(n.mod(a), a);
+        if (y == null) {
+            return null;
+        }
+        return n.subtract(n.multiply(y).subtract(BigInteger.ONE).divide(a)).mod(n);
+    }
+
+    /*
+        value^-1 mod odd m for 0 <= value < m.
+        Invariants: m = u * s + v * r, value * r = -u * 2^k and value * s = v * 2^k (mod m).
+        r and s never exceed 2m, one extra limb holds them.
+        u and v only shrink and r, s only grow, so the loop works on their current lengths, not all limbs.
+     */
+    private static BigInteger oddInverse(BigInteger value, BigInteger m) {
+        if (m.equals(BigInteger.ONE)) {
+            return BigInteger.ZERO;
+        }
+        if (value.signum() == 0) {
+            return null;
+        }
+        int size = (m.bitLength() + 63) / 64 + 1;
+        long[] modulus = Montgomery.toLimbs(m, size);
+        long[] u = modulus.clone();
+        long[] v = Montgomery.toLimbs(value, size);
+        long[] r = new long[size];
+        long[] s = new long[size];
+        s[0] = 1;
+        int k = 0;
+        int uvLength = size - 1;
+        int rsLength = 1;
+
+        while (!isZero(v, uvLength)) {
+            if ((u[0] & 1) == 0) {
+                int zeros = trailingZeros(u);
+                rsLength = Math.min(size, rsLength + (zeros >>> 6) + 1);
+                shiftRight(u, zeros, uvLength);
+                shiftLeft(s, zeros, rsLength);
+                k += zeros;
+            } else if ((v[0] & 1) == 0) {
+                int zeros = trailingZeros(v);
+                rsLength = Math.min(size, rsLength + (zeros >>> 6) + 1);
+                shiftRight(v, zeros, uvLength);
+                shiftLeft(r, zeros, rsLength);
+                k += zeros;
+            } else {
+                rsLength = Math.min(size, rsLength + 1);
+                if (compare(u, v, uvLength) > 0) {
+                    subtract(u, v, uvLength);
+                    shiftRight(u, 1, uvLength);
+                    add(r, s, rsLength);
+                    shiftLeft(s, 1, rsLength);
+                } else {
+                    subtract(v, u, uvLength);
+                    shiftRight(v, 1, uvLength);
+                    add(s, r, rsLength);
+                    shiftLeft(r, 1, rsLength);
+                }
+                k++;
+            }
+            while (uvLength > 1 && u[uvLength - 1] == 0 && v[uvLength - 1] == 0) {
+                uvLength--;
+            }
+        }
+        if (!isOne(u)) {
+            return null;
+        }
+
+        if (compare(r, modulus, size) >= 0) {
+            subtract(r, modulus, size);
+        }
+        long[] x = modulus.clone();
+        subtract(x, r, size);
+        divideByPowerOfTwo(x, modulus, k);
+        return Montgomery.toBigInteger(x);
+    }
+
+    /*
+        x = x * 2^-k mod m for odd m and x <= m: whole words by Montgomery reduction, then single bits.
+     */
+    private static void divideByPowerOfTwo(long[] x, long[] m, int k) {
+        long m0inv = -Montgomery.inverse64(m[0]);
+        int size = x.length;
+        for (int word = 0; word < k / 64; word++) {
+            long q = x[0] * m0inv;
+            long carry = 0;
+            for (int i = 0; i < size; i++) {
+                long low = q * m[i];
+                long high = Montgomery.unsignedMultiplyHigh(q, m[i]);
+                long sum = x[i] + low;
+                high += Long.compareUnsigned(sum, low) < 0 ? 1 : 0;
+                sum += carry;
+                high += Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+                if (i > 0) {
+                    x[i - 1] = sum;
+                }
+                carry = high;
+            }
+            x[size - 1] = carry;
+        }
+        for (int bit = 0; bit < k % 64; bit++) {
+            if ((x[0] & 1) != 0) {
+                add(x, m, size);
+            }
+            shiftRight(x, 1, size);
+        }
+        if (compare(x, m, size) >= 0) {
+            subtract(x, m, size);
+        }
+    }
+
+    private static void add(long[] x, long[] y, int length) {
+        long carry = 0;
+        for (int i = 0; i < length; i++) {
+            long xi = x[i];
+            long yi = y[i];
+            long sum = xi + yi + carry;
+            carry = ((xi & yi) | ((xi | yi) & ~sum)) >>> 63;
+            x[i] = sum;
+        }
+    }
+
+    private static void subtract(long[] x, long[] y, int length) {
+        long borrow = 0;
+        for (int i = 0; i < length; i++) {
+            long xi = x[i];
+            long yi = y[i];
+            long diff = xi - yi - borrow;
+            borrow = ((~xi & yi) | (~(xi ^ yi) & diff)) >>> 63;
+            x[i] = diff;
+        }
+    }
+
+    /*
+        Number of trailing zero bits of non-zero x.
+     */
+    private static int trailingZeros(long[] x) {
+        int i = 0;
+        while (x[i] == 0) {
+            i++;
+        }
+        return i * 64 + Long.numberOfTrailingZeros(x[i]);
+    }
+
+    private static void shiftRight(long[] x, int bits, int length) {
+        int words = bits >>> 6;
+        int shift = bits & 63;
+        for (int i = 0; i < length; i++) {
+            int from = i + words;
+            long low = from < length ? x[from] : 0;
+            long high = from + 1 < length ? x[from + 1] : 0;
+            x[i] = shift == 0 ? low : (low >>> shift) | (high << (64 - shift));
+        }
+    }
+
+    private static void shiftLeft(long[] x, int bits, int length) {
+        int words = bits >>> 6;
+        int shift = bits & 63;
+        for (int i = length - 1; i >= 0; i--) {
+            int from = i - words;
+            long high = from >= 0 ? x[from] : 0;
+            long low = from - 1 >= 0 ? x[from - 1] : 0;
+            x[i] = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        }
+    }
+
+    private static int compare(long[] x, long[] y, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (x[i] != y[i]) {
+                return Long.compareUnsigned(x[i], y[i]);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isOne(long[] x) {
+        if (x[0] != 1) {
+            return false;
+        }
+        for (int i = 1; i < x.length; i++) {
+            if (x[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(long[] x, int length) {
+        for (int i = 0; i < length; i++) {
+            if (x[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
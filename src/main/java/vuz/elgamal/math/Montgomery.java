@@ -0,0 +1,235 @@
+package vuz.elgamal.math;
+
+import java.math.BigInteger;
+
+/**
+ * Montgomery multiplication modulo an odd number n on little-endian 64-bit limbs.
+ * A number x is kept in Montgomery form x * R mod n, where R = 2^(64 * size),
+ * then multiply(a, b) = a * b * R^-1 mod n needs no division at all.
+ *
+ * Multiplication writes into arrays owned by the caller, so a loop over them allocates nothing:
+ * scratch space comes from a {@link Workspace}, one per thread.
+ *
+ * Context is immutable and may be shared between threads, callers own all arrays passed in.
+ */
+public class Montgomery {
+
+    private final BigInteger modulus;
+    private final int size;
+    private final long[] n;
+    private final long n0inv;
+    private final long[] one;
+    private final long[] unit;
+
+    /**
+     * @param modulus odd modulus.
+     */
+    public Montgomery(BigInteger modulus) {
+        if (!modulus.testBit(0)) {
+            throw new IllegalArgumentException("Montgomery modulus must be odd");
+        }
+        this.modulus = modulus;
+        this.size = (modulus.bitLength() + 63) / 64;
+        this.n = toLimbs(modulus, size);
+        this.n0inv = -inverse64(n[0]);
+        this.one = toMontgomery(BigInteger.ONE);
+        this.unit = new long[size];
+        this.unit[0] = 1;
+    }
+
+    /**
+     * Scratch arrays for one thread. Reuse it for any number of calls with this context.
+     */
+    public static final class Workspace {
+
+        private final long[] t;
+
+        private Workspace(int size) {
+            t = new long[size + 2];
+        }
+
+        /**
+         * @return scratch suitable for {@link #multiply}.
+         */
+        public long[] scratch() {
+            return t;
+        }
+    }
+
+    /**
+     * @return new workspace sized for this modulus.
+     */
+    public Workspace newWorkspace() {
+        return new Workspace(size);
+    }
+
+    /**
+     * @return number of 64-bit limbs of every value.
+     */
+    public int size() {
+        return size;
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    /**
+     * @param x any non-negative number.
+     * @return x * R mod n.
+     */
+    public long[] toMontgomery(BigInteger x) {
+        return toLimbs(x.shiftLeft(64 * size).mod(modulus), size);
+    }
+
+    /**
+     * @param x value in Montgomery form.
+     * @return x * R^-1 mod n.
+     */
+    public BigInteger fromMontgomery(long[] x) {
+        long[] out = new long[size];
+        fromMontgomery(x, out, new long[size + 2]);
+        return toBigInteger(out);
+    }
+
+    /**
+     * @param x value in Montgomery form.
+     * @param out x * R^-1 mod n as limbs, may be x itself.
+     * @param t scratch, at least size + 2 limbs.
+     */
+    public void fromMontgomery(long[] x, long[] out, long[] t) {
+        multiply(x, unit, out, t);
+    }
+
+    /**
+     * @return R mod n, Montgomery form of 1. Must not be modified.
+     */
+    public long[] one() {
+        return one;
+    }
+
+    /**
+     * CIOS Montgomery multiplication: out = a * b * R^-1 mod n.
+     * out may be the same array as a or b.
+     *
+     * @param a factor in Montgomery form.
+     * @param b factor in Montgomery form.
+     * @param out result, size limbs.
+     * @param t scratch, at least size + 2 limbs.
+     */
+    public void multiply(long[] a, long[] b, long[] out, long[] t) {
+        int s = size;
+        for (int i = 0; i <= s + 1; i++) {
+            t[i] = 0;
+        }
+        for (int i = 0; i < s; i++) {
+            long bi = b[i];
+            long carry = 0;
+            for (int j = 0; j < s; j++) {
+                long aj = a[j];
+                long lo = aj * bi;
+                long hi = unsignedMultiplyHigh(aj, bi);
+                long sum = t[j] + lo;
+                hi += Long.compareUnsigned(sum, lo) < 0 ? 1 : 0;
+                long result = sum + carry;
+                hi += Long.compareUnsigned(result, sum) < 0 ? 1 : 0;
+                t[j] = result;
+                carry = hi;
+            }
+            long sum = t[s] + carry;
+            t[s + 1] = Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+            t[s] = sum;
+
+            long m = t[0] * n0inv;
+            long lo = m * n[0];
+            carry = unsignedMultiplyHigh(m, n[0]) + (Long.compareUnsigned(t[0] + lo, lo) < 0 ? 1 : 0);
+            for (int j = 1; j < s; j++) {
+                long nj = n[j];
+                lo = m * nj;
+                long hi = unsignedMultiplyHigh(m, nj);
+                long tj = t[j] + lo;
+                hi += Long.compareUnsigned(tj, lo) < 0 ? 1 : 0;
+                long result = tj + carry;
+                hi += Long.compareUnsigned(result, tj) < 0 ? 1 : 0;
+                t[j - 1] = result;
+                carry = hi;
+            }
+            sum = t[s] + carry;
+            t[s - 1] = sum;
+            t[s] = t[s + 1] + (Long.compareUnsigned(sum, carry) < 0 ? 1 : 0);
+        }
+        subtractModulusIfNeeded(t, out);
+    }
+
+    private boolean lessThanModulus(long[] t) {
+        for (int j = size - 1; j >= 0; j--) {
+            if (t[j] != n[j]) {
+                return Long.compareUnsigned(t[j], n[j]) < 0;
+            }
+        }
+        return false;
+    }
+
+    /*
+        out = t - n if t[0 .. size] >= n, else out = t; t[size] is the overflow limb.
+     */
+    private void subtractModulusIfNeeded(long[] t, long[] out) {
+        if (t[size] != 0 || !lessThanModulus(t)) {
+            subtractModulus(t, out);
+        } else {
+            System.arraycopy(t, 0, out, 0, size);
+        }
+    }
+
+    private void subtractModulus(long[] t, long[] out) {
+        long borrow = 0;
+        for (int j = 0; j < size; j++) {
+            long tj = t[j];
+            out[j] = tj - n[j] - borrow;
+            borrow = (Long.compareUnsigned(tj, n[j]) < 0 || (borrow == 1 && tj == n[j])) ? 1 : 0;
+        }
+    }
+
+    /**
+     * @param x value, non-negative and less than 2^(64 * size).
+     * @param size number of limbs.
+     * @return little-endian limbs.
+     */
+    public static long[] toLimbs(BigInteger x, int size) {
+        long[] limbs = new long[size];
+        for (int i = 0; i < size; i++) {
+            limbs[i] = x.shiftRight(64 * i).longValue();
+        }
+        return limbs;
+    }
+
+    /**
+     * @param limbs little-endian limbs.
+     * @return non-negative number.
+     */
+    public static BigInteger toBigInteger(long[] limbs) {
+        byte[] bytes = new byte[limbs.length * 8 + 1];
+        for (int i = 0; i < limbs.length; i++) {
+            long limb = limbs[i];
+            for (int j = 0; j < 8; j++) {
+                bytes[bytes.length - 1 - i * 8 - j] = (byte) (limb >>> (8 * j));
+            }
+        }
+        return new BigInteger(bytes);
+    }
+
+    static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /*
+        x^-1 mod 2^64 for odd x, Newton iteration doubles correct bits every step.
+     */
+    static long inverse64(long x) {
+        long inverse = x;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - x * inverse;
+        }
+        return inverse;
+    }
+}
@@ -0,0 +1,27 @@
+package vuz.elgamal.metrics;
+
+/**
+ * Counted events of key generation, signing and verification.
+ */
+public enum Counter {
+    BYTES_HASHED,
+    /**
+     * Odd q looked at by the safe prime sieve.
+     */
+    PRIME_CANDIDATES,
+    /**
+     * Sieve survivors that went to the primality tests.
+     */
+    PRIMALITY_TESTED,
+    /**
+     * Tested candidates that failed a Fermat test or the primality test.
+     */
+    PRIMALITY_REJECTED,
+    SIGNATURES,
+    VERIFIED_VALID,
+    VERIFIED_INVALID,
+    /**
+     * I/O errors reported to the user.
+     */
+    FAILURES
+}
@@ -0,0 +1,71 @@
+package vuz.elgamal.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals kept in memory, always registered in {@link Metrics}.
+ */
+public class InMemoryMetrics implements MetricsRecorder {
+
+    private static final double NANOS_IN_MILLISECOND = 1e6;
+
+    private final LongAdder[] phaseNanos = adders(Phase.values().length);
+    private final LongAdder[] phaseCounts = adders(Phase.values().length);
+    private final LongAdder[] counters = adders(Counter.values().length);
+
+    @Override
+    public void phase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+        phaseCounts[phase.ordinal()].increment();
+    }
+
+    @Override
+    public void count(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * @param phase phase.
+     * @return total time spent in the phase.
+     */
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * @param phase phase.
+     * @return how many times the phase finished.
+     */
+    public long getCount(Phase phase) {
+        return phaseCounts[phase.ordinal()].sum();
+    }
+
+    /**
+     * @param counter counter.
+     * @return current value.
+     */
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            builder.append(String.format("%s count=%d total=%.1fms%n",
+                phase.name().toLowerCase(), getCount(phase), getNanos(phase) / NANOS_IN_MILLISECOND));
+        }
+        for (Counter counter : Counter.values()) {
+            builder.append(String.format("%s %d%n", counter.name().toLowerCase(), getCount(counter)));
+        }
+        return builder.toString();
+    }
+
+    private static LongAdder[] adders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
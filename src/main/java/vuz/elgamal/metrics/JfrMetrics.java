@@ -0,0 +1,39 @@
+package vuz.elgamal.metrics;
+
+/**
+ * Emits a {@link PhaseEvent} for every phase. The event is begun when the phase starts and committed when it ends,
+ * so JFR measures the duration itself. Costs one check while JFR is not recording.
+ * Counters are not emitted, they are too frequent to be useful as events.
+ *
+ * Events are passed around as Object, so nothing outside this class links jdk.jfr classes.
+ */
+final class JfrMetrics {
+
+    private JfrMetrics() {
+    }
+
+    /**
+     * @return begun event, null if phase events are not recorded.
+     */
+    static Object begin() {
+        PhaseEvent event = new PhaseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param event value of {@link #begin()}, not null.
+     * @param phase finished phase.
+     */
+    static void commit(Object event, Phase phase) {
+        PhaseEvent phaseEvent = (PhaseEvent) event;
+        phaseEvent.end();
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.phase = phase.name();
+            phaseEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package vuz.elgamal.metrics;
+
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Static metrics facade used by the hot paths.
+ * Always feeds {@link InMemoryMetrics} and JFR events, plus recorders found by {@link ServiceLoader}
+ * or added with {@link #register(MetricsRecorder)}.
+ *
+ * Example: PhaseTimer start = Metrics.start(); ... Metrics.phase(Phase.HASH, start);
+ */
+public final class Metrics {
+
+    private static final InMemoryMetrics DEFAULT = new InMemoryMetrics();
+    private static final List<MetricsRecorder> RECORDERS = new CopyOnWriteArrayList<>();
+    private static final boolean JFR = jfrAvailable();
+
+    static {
+        RECORDERS.add(DEFAULT);
+        for (MetricsRecorder recorder : ServiceLoader.load(MetricsRecorder.class)) {
+            RECORDERS.add(recorder);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * @return timer of a phase starting now.
+     */
+    public static PhaseTimer start() {
+        return new PhaseTimer(System.nanoTime(), JFR ? JfrMetrics.begin() : null);
+    }
+
+    /**
+     * @param phase finished phase.
+     * @param start value of {@link #start()} taken when the phase began.
+     */
+    public static void phase(Phase phase, PhaseTimer start) {
+        long nanos = System.nanoTime() - start.start;
+        for (MetricsRecorder recorder : RECORDERS) {
+            recorder.phase(phase, nanos);
+        }
+        if (start.event != null) {
+            JfrMetrics.commit(start.event, phase);
+        }
+    }
+
+    /**
+     * @param counter counter.
+     * @param amount increment.
+     */
+    public static void count(Counter counter, long amount) {
+        for (MetricsRecorder recorder : RECORDERS) {
+            recorder.count(counter, amount);
+        }
+    }
+
+    /**
+     * @param recorder additional receiver of all later metrics.
+     */
+    public static void register(MetricsRecorder recorder) {
+        RECORDERS.add(recorder);
+    }
+
+    /**
+     * @param recorder receiver to remove.
+     */
+    public static void unregister(MetricsRecorder recorder) {
+        RECORDERS.remove(recorder);
+    }
+
+    /**
+     * @return totals of this JVM.
+     */
+    public static InMemoryMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    private static boolean jfrAvailable() {
+        try {
+            JfrMetrics.begin();
+            return true;
+        } catch (LinkageError e) {
+            // runtime without jdk.jfr module
+            return false;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package vuz.elgamal.metrics;
+
+/**
+ * Receiver of metrics, see {@link Metrics}. Implementations listed in
+ * META-INF/services/vuz.elgamal.metrics.MetricsRecorder are registered automatically,
+ * that is the way to bind Micrometer or any other registry without a dependency here.
+ * Methods are called on hot paths from many threads, they must be thread-safe and cheap.
+ */
+public interface MetricsRecorder {
+
+    /**
+     * @param phase finished phase.
+     * @param nanos its duration.
+     */
+    void phase(Phase phase, long nanos);
+
+    /**
+     * @param counter counter.
+     * @param amount increment.
+     */
+    void count(Counter counter, long amount);
+}
@@ -0,0 +1,31 @@
+package vuz.elgamal.metrics;
+
+/**
+ * Timed parts of key generation, signing and verification.
+ */
+public enum Phase {
+    /**
+     * Explicit reads: key files, detached signatures, the tail of a signed file.
+     */
+    READ,
+    /**
+     * Stribog256 over the message. Messages are mapped, so page faults of the file are counted here too.
+     */
+    HASH,
+    /**
+     * Taking a nonce: g^r mod p and r^-1 mod (p - 1), or just a pool hit.
+     */
+    NONCE,
+    /**
+     * Verification equation g^h = y^a * a^b mod p.
+     */
+    EXPONENTIATION,
+    /**
+     * Writing signatures and keys.
+     */
+    WRITE,
+    /**
+     * Safe prime search of key generation.
+     */
+    SAFE_PRIME
+}
@@ -0,0 +1,22 @@
+package vuz.elgamal.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of one {@link Phase}, begun at its start and committed at its end, the duration is the event's own.
+ */
+@Name("vuz.elgamal.Phase")
+@Label("ElGamal Phase")
+@Category("ElGamal")
+@Description("Read, hash, nonce, exponentiation, write or safe prime search of one signature operation")
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+}
@@ -0,0 +1,16 @@
+package vuz.elgamal.metrics;
+
+/**
+ * Running {@link Phase}: returned by {@link Metrics#start()} and given back to {@link Metrics#phase(Phase, PhaseTimer)}.
+ * While JFR records phase events it also holds the begun {@link PhaseEvent}, so the event carries JFR's own start time and duration.
+ */
+public final class PhaseTimer {
+
+    final long start;
+    final Object event;
+
+    PhaseTimer(long start, Object event) {
+        this.start = start;
+        this.event = event;
+    }
+}
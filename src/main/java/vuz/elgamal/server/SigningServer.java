@@ -0,0 +1,322 @@
+package vuz.elgamal.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.keys.NoncePool;
+import vuz.elgamal.keys.PrivateKey;
+import vuz.elgamal.keys.PublicKey;
+import vuz.elgamal.metrics.Metrics;
+import vuz.elgamal.utils.BinaryUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-running signing service on the loopback interface. Keys are parsed once, their fixed-base tables
+ * are built at start and the private key keeps a background nonce pool, so a request pays only for hashing
+ * and the message-dependent part of the signature.
+ *
+ * POST /sign    body is the message, response is the detached signature (.sig format).
+ * POST /verify  body is the message, X-Signature header holds the detached signature in base64.
+ *               Responds 200 if the signature is valid, 422 otherwise.
+ * Both accept an X-Digest header with a hex Stribog256 digest instead of the body.
+ * GET /metrics  request count and latency percentiles of every endpoint, then totals of {@link Metrics}.
+ *
+ * Every request needs "Authorization: Bearer &lt;token&gt;" and a Host header naming the loopback address and port.
+ * Loopback alone does not keep out other local users, nor web pages that reach the port through DNS rebinding.
+ *
+ * Stribog256 hashes the message from its end: bodies up to 64 KB are hashed in memory,
+ * larger ones are spooled to a temporary file first.
+ * Connections are multiplexed by the JDK server on one selector thread, requests run on a fixed pool of the given size
+ * and read their bodies with blocking I/O, so no more requests than threads are in progress at once.
+ */
+public class SigningServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8421;
+    public static final String DIGEST_HEADER = "X-Digest";
+    public static final String SIGNATURE_HEADER = "X-Signature";
+    public static final String DEFAULT_TOKEN_FILE = "elgamal.token";
+
+    private static final int BACKLOG = 1024;
+    private static final int IN_MEMORY_BODY = 64 * 1024;
+    private static final int TOKEN_LENGTH = 32;
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int UNAUTHORIZED = 401;
+    private static final int FORBIDDEN = 403;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int INVALID_SIGN = 422;
+    private static final int SERVER_ERROR = 500;
+
+    private final DigitalSignature digitalSignature;
+    private final PrivateKey privateKey;
+    private final PublicKey publicKey;
+    private final byte[] authorization;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LatencyRecorder signLatency = new LatencyRecorder();
+    private final LatencyRecorder verifyLatency = new LatencyRecorder();
+
+    /**
+     * @param digitalSignature signature scheme.
+     * @param privateKey key for /sign, null to serve verification only.
+     * @param publicKey key for /verify, null to serve signing only.
+     * @param port loopback port, 0 for any free port.
+     * @param threads number of threads handling requests.
+     * @param token secret every request must present as a bearer token, see {@link #loadToken(Path)}.
+     */
+    public SigningServer(DigitalSignature digitalSignature, PrivateKey privateKey, PublicKey publicKey,
+                         int port, int threads, String token) throws IOException {
+        if (privateKey == null && publicKey == null) {
+            throw new IllegalArgumentException("Private key, public key or both are required");
+        }
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Token is required");
+        }
+        this.digitalSignature = digitalSignature;
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+        this.authorization = ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+
+        if (privateKey != null) {
+            privateKey.precompute().startNoncePool(NoncePool.DEFAULT_DEPTH, NoncePool.DEFAULT_WATERMARK);
+        }
+        if (publicKey != null) {
+            publicKey.precompute();
+        }
+        executor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/sign", guarded(this::handleSign));
+        server.createContext("/verify", guarded(this::handleVerify));
+        server.createContext("/metrics", guarded(this::handleMetrics));
+    }
+
+    /**
+     * Read the token from a file readable by its owner only, or create the file with a new random token.
+     *
+     * @param file token file.
+     * @return token.
+     * @throws IOException if the file can not be read or written or other users may read it.
+     */
+    public static String loadToken(Path file) throws IOException {
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (Files.exists(file)) {
+            if (posix) {
+                Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file);
+                permissions.removeAll(Set.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+                if (!permissions.isEmpty()) {
+                    throw new IOException("Token file " + file + " must be readable by its owner only");
+                }
+            }
+            String token = Files.readString(file, StandardCharsets.UTF_8).trim();
+            if (token.isEmpty()) {
+                throw new IOException("Token file " + file + " is empty");
+            }
+            return token;
+        }
+
+        byte[] random = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(random);
+        String token = BinaryUtils.bytesToHexString(random);
+        if (posix) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(file);
+        }
+        Files.writeString(file, token, StandardCharsets.UTF_8);
+        return token;
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return actual port, useful when started on port 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public LatencyRecorder getSignLatency() {
+        return signLatency;
+    }
+
+    public LatencyRecorder getVerifyLatency() {
+        return verifyLatency;
+    }
+
+    /**
+     * Stop accepting requests and discard unused nonces.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        if (privateKey != null) {
+            privateKey.stopNoncePool();
+        }
+    }
+
+    /*
+        Host is checked before the token: a rebound page sends its own host name and never learns the token,
+        a local process without the token file is refused either way.
+     */
+    private HttpHandler guarded(HttpHandler handler) {
+        return exchange -> {
+            String host = exchange.getRequestHeaders().getFirst("Host");
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (!isLoopbackHost(host)) {
+                respond(exchange, FORBIDDEN, "Host must be localhost:" + getPort());
+            } else if (authorization == null
+                    || !MessageDigest.isEqual(authorization.getBytes(StandardCharsets.UTF_8), this.authorization)) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                respond(exchange, UNAUTHORIZED, "Missing or wrong bearer token");
+            } else {
+                handler.handle(exchange);
+            }
+        };
+    }
+
+    private boolean isLoopbackHost(String host) {
+        String port = ":" + getPort();
+        return host != null && (host.equals("localhost" + port) || host.equals("127.0.0.1" + port) || host.equals("[::1]" + port));
+    }
+
+    private void handleSign(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (privateKey == null) {
+                respond(exchange, NOT_FOUND, "Server has no private key");
+            } else if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, METHOD_NOT_ALLOWED, "Use POST");
+            } else {
+                String digest = exchange.getRequestHeaders().getFirst(DIGEST_HEADER);
+                byte[] sign = digest != null
+                    ? digitalSignature.signDigest(BinaryUtils.hexStringToBytes(digest), privateKey)
+                    : signBody(exchange.getRequestBody());
+                respond(exchange, OK, sign);
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            respond(exchange, SERVER_ERROR, "Something went wrong: " + e.getMessage());
+        } finally {
+            signLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private void handleVerify(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            String signature = exchange.getRequestHeaders().getFirst(SIGNATURE_HEADER);
+            if (publicKey == null) {
+                respond(exchange, NOT_FOUND, "Server has no public key");
+            } else if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, METHOD_NOT_ALLOWED, "Use POST");
+            } else if (signature == null) {
+                respond(exchange, BAD_REQUEST, "Missing " + SIGNATURE_HEADER + " header");
+            } else {
+                byte[] sign = Base64.getDecoder().decode(signature);
+                String digest = exchange.getRequestHeaders().getFirst(DIGEST_HEADER);
+                if (digest != null) {
+                    digitalSignature.verifyDigest(BinaryUtils.hexStringToBytes(digest), sign, publicKey);
+                } else {
+                    verifyBody(exchange.getRequestBody(), sign);
+                }
+                respond(exchange, OK, "Sign valid!");
+            }
+        } catch (FileCorruptedOrFalsify e) {
+            respond(exchange, INVALID_SIGN, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            respond(exchange, SERVER_ERROR, "Something went wrong: " + e.getMessage());
+        } finally {
+            verifyLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        String metrics = String.format("sign %s%nverify %s%n%s", signLatency, verifyLatency, Metrics.getDefault());
+        respond(exchange, OK, metrics);
+    }
+
+    private byte[] signBody(InputStream body) throws IOException {
+        try (InputStream in = body) {
+            byte[] head = in.readNBytes(IN_MEMORY_BODY + 1);
+            if (head.length <= IN_MEMORY_BODY) {
+                return digitalSignature.createDetachedSign(head, privateKey);
+            }
+            Path spool = spool(head, in);
+            try {
+                return digitalSignature.createDetachedSign(spool, privateKey);
+            } finally {
+                Files.deleteIfExists(spool);
+            }
+        }
+    }
+
+    private void verifyBody(InputStream body, byte[] sign) throws IOException, FileCorruptedOrFalsify {
+        try (InputStream in = body) {
+            byte[] head = in.readNBytes(IN_MEMORY_BODY + 1);
+            if (head.length <= IN_MEMORY_BODY) {
+                digitalSignature.verifyDetachedSign(head, sign, publicKey);
+                return;
+            }
+            Path spool = spool(head, in);
+            try {
+                digitalSignature.verifyDetachedSign(spool, sign, publicKey);
+            } finally {
+                Files.deleteIfExists(spool);
+            }
+        }
+    }
+
+    private Path spool(byte[] head, InputStream rest) throws IOException {
+        Path spool = Files.createTempFile("elgamal", ".body");
+        try (OutputStream out = Files.newOutputStream(spool)) {
+            out.write(head);
+            rest.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        return spool;
+    }
+
+    private void respond(HttpExchange exchange, int status, String message) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        respond(exchange, status, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
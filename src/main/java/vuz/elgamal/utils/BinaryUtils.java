@@ -83,6 +83,27 @@ public class BinaryUtils {
         return hexString.toString();
     }
 
+    /**
+     * @param hex hex string, two digits per byte.
+     * @return decoded bytes.
+     * @throws IllegalArgumentException if the string is not a valid hex string.
+     */
+    public static byte[] hexStringToBytes(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Odd length of hex string");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hex string");
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
     /**
      * Return message without signature.
      *
@@ -120,14 +141,59 @@ public class BinaryUtils {
             start += SIGNATURE.length;
             byte param = copy[start++];
             end = indexOfSignature(Arrays.copyOfRange(copy, start, copy.length), SIGNATURE);
+            if (end == -1) {
+                throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+            }
             params.put(Params.mapByteToString(param), Arrays.copyOfRange(copy, start, start + end));
             copy = Arrays.copyOfRange(copy, start + end + SIGNATURE.length, copy.length);
         }
         return convert(params);
     }
 
+    /**
+     * Find signature (A and B params) at the end of signed data, scanning backwards.
+     * Message itself may contain deadbeef, so candidate is accepted only if the rest of data is exactly A and B.
+     *
+     * @param tail last bytes of signed data, at least the whole signature.
+     * @return index in tail where signature starts or -1 if not found.
+     */
+    public static int lastIndexOfSign(byte[] tail) {
+        for (int i = tail.length - 2 * (2 * SIGNATURE.length + 1); i >= 0; i--) {
+            if (tail[i + SIGNATURE.length] == Params.A && startsWith(tail, i, SIGNATURE)) {
+                try {
+                    Map<String, BigInteger> params = parseParams(Arrays.copyOfRange(tail, i, tail.length));
+                    if (params.size() == 2 && params.containsKey("A") && params.containsKey("B")) {
+                        return i;
+                    }
+                } catch (FileCorruptedOrFalsify ignored) {
+                    // deadbeef inside signature values, keep scanning
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Max length of wrapped A and B, both are less than p. Also bounds a {@link ParamsContainer} with A and B.
+     *
+     * @param p modulus.
+     * @return length in bytes.
+     */
+    public static int maxSignLength(BigInteger p) {
+        return 2 * (2 * SIGNATURE.length + 1 + convertBigIntegerToBytes(p).length);
+    }
+
+    private static boolean startsWith(byte[] data, int from, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (data[from + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static void checkLastBytes(byte[] data) throws FileCorruptedOrFalsify {
-        if (!Arrays.equals(SIGNATURE, Arrays.copyOfRange(data, data.length - 4, data.length))) {
+        if (data.length < SIGNATURE.length || !Arrays.equals(SIGNATURE, Arrays.copyOfRange(data, data.length - 4, data.length))) {
             throw new FileCorruptedOrFalsify("File corrupted or falsify!");
         }
     }
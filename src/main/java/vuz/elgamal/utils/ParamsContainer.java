@@ -0,0 +1,257 @@
+package vuz.elgamal.utils;
+
+import vuz.elgamal.Params;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Versioned length-prefixed container for keys and signatures.
+ * Example: e16a | version | tag | varint length | value | ... | tag | varint length | value | u32 total length | e16a
+ *
+ * Tags are {@link Params} bytes, values are unsigned big-endian numbers or raw bytes. Lengths make every value opaque,
+ * so a value may contain any bytes, deadbeef included. The footer repeats the total length, so a container
+ * appended to a message is found from the end of the file without scanning.
+ *
+ * Data starting with deadbeef is the legacy format and is parsed by {@link BinaryUtils#parseParams(byte[])}.
+ */
+public class ParamsContainer {
+
+    public static final byte VERSION = 1;
+
+    private static final byte[] MAGIC = new byte[]{(byte) 0xe1, (byte) 0x6a};
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+    private static final int FOOTER_LENGTH = Integer.BYTES + MAGIC.length;
+    private static final int MAX_VARINT_LENGTH = 5;
+
+    /**
+     * Read params in either format.
+     *
+     * @param data container or legacy params.
+     * @return map with parsed params.
+     */
+    public static Map<String, BigInteger> read(byte[] data) throws FileCorruptedOrFalsify {
+        if (isContainer(data, 0)) {
+            return parse(ByteBuffer.wrap(data));
+        }
+        return BinaryUtils.parseParams(data);
+    }
+
+    /**
+     * Read params in either format, raw values of a container are returned as views of data.
+     *
+     * @param data container or legacy params.
+     * @param raw receives raw values by name, see {@link #parse(ByteBuffer, Map)}.
+     * @return map with parsed numbers.
+     */
+    public static Map<String, BigInteger> read(byte[] data, Map<String, ByteBuffer> raw) throws FileCorruptedOrFalsify {
+        if (isContainer(data, 0)) {
+            return parse(ByteBuffer.wrap(data), raw);
+        }
+        return BinaryUtils.parseParams(data);
+    }
+
+    /**
+     * Parse the container in one pass, values are converted straight from the buffer.
+     * Reads from the buffer position to its limit, the buffer must hold exactly one container.
+     *
+     * @param buffer container.
+     * @return map with parsed params.
+     */
+    public static Map<String, BigInteger> parse(ByteBuffer buffer) throws FileCorruptedOrFalsify {
+        return parse(buffer, null);
+    }
+
+    /**
+     * Parse the container in one pass. Raw values ({@link Params#isRaw(byte)}) are neither converted nor copied:
+     * they are handed out as read-only views of the buffer, or skipped.
+     *
+     * @param buffer container.
+     * @param raw receives raw values by name, null to skip them.
+     * @return map with parsed numbers.
+     */
+    public static Map<String, BigInteger> parse(ByteBuffer buffer, Map<String, ByteBuffer> raw) throws FileCorruptedOrFalsify {
+        Map<String, BigInteger> params = new HashMap<>();
+        walk(buffer, (tag, field, length) -> {
+            String param = Params.mapByteToString(tag);
+            if (!Params.isRaw(tag)) {
+                if (params.put(param, readValue(field, length)) != null) {
+                    throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+                }
+                return;
+            }
+            ByteBuffer value = field.duplicate();
+            value.limit(value.position() + length);
+            field.position(field.position() + length);
+            if (raw != null && raw.put(param, value.slice().asReadOnlyBuffer()) != null) {
+                throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+            }
+        });
+        return params;
+    }
+
+    /*
+        Checks header and footer and passes every field to the visitor, which must consume exactly length bytes.
+     */
+    private static void walk(ByteBuffer buffer, FieldVisitor visitor) throws FileCorruptedOrFalsify {
+        int start = buffer.position();
+        int length = buffer.remaining();
+        if (length < HEADER_LENGTH + FOOTER_LENGTH || buffer.get() != MAGIC[0] || buffer.get() != MAGIC[1]) {
+            throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+        }
+        if (buffer.get() != VERSION) {
+            throw new FileCorruptedOrFalsify("Unsupported format version!");
+        }
+
+        int fieldsEnd = buffer.limit() - FOOTER_LENGTH;
+        while (buffer.position() < fieldsEnd) {
+            byte tag = buffer.get();
+            int valueLength = readVarint(buffer, fieldsEnd);
+            if (valueLength > fieldsEnd - buffer.position()) {
+                throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+            }
+            visitor.visit(tag, buffer, valueLength);
+        }
+        if (buffer.position() != fieldsEnd || buffer.getInt() != length
+                || buffer.get() != MAGIC[0] || buffer.get() != MAGIC[1]) {
+            throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+        }
+        buffer.position(start + length);
+    }
+
+    /**
+     * Find container appended to the end of data by its footer.
+     *
+     * @param tail last bytes of data, at least the whole container.
+     * @return index in tail where container starts or -1 if tail does not end with a container.
+     */
+    public static int lastIndexOf(byte[] tail) {
+        if (tail.length < HEADER_LENGTH + FOOTER_LENGTH
+                || tail[tail.length - 2] != MAGIC[0] || tail[tail.length - 1] != MAGIC[1]) {
+            return -1;
+        }
+        int length = ByteBuffer.wrap(tail, tail.length - FOOTER_LENGTH, Integer.BYTES).getInt();
+        int start = tail.length - length;
+        if (length < HEADER_LENGTH + FOOTER_LENGTH || start < 0 || !isContainer(tail, start)) {
+            return -1;
+        }
+        return start;
+    }
+
+    /**
+     * Max length of a container with the given values, all of them less than bound.
+     *
+     * @param bound upper bound of values.
+     * @param fields number of fields.
+     * @return length in bytes.
+     */
+    public static int maxLength(BigInteger bound, int fields) {
+        int valueLength = BinaryUtils.convertBigIntegerToBytes(bound).length;
+        return HEADER_LENGTH + fields * (1 + varintLength(valueLength) + valueLength) + FOOTER_LENGTH;
+    }
+
+    private static boolean isContainer(byte[] data, int from) {
+        return data.length - from >= HEADER_LENGTH && data[from] == MAGIC[0] && data[from + 1] == MAGIC[1];
+    }
+
+    private static BigInteger readValue(ByteBuffer buffer, int length) {
+        BigInteger value;
+        if (buffer.hasArray()) {
+            value = new BigInteger(1, buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new BigInteger(1, bytes);
+        }
+        return value;
+    }
+
+    /*
+        Unsigned LEB128: 7 bits per byte, lowest first, high bit set on every byte but the last.
+     */
+    private static int readVarint(ByteBuffer buffer, int limit) throws FileCorruptedOrFalsify {
+        long value = 0;
+        for (int i = 0; i < MAX_VARINT_LENGTH && buffer.position() < limit; i++) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7f) << (7 * i);
+            if ((b & 0x80) == 0) {
+                if (value > Integer.MAX_VALUE) {
+                    break;
+                }
+                return (int) value;
+            }
+        }
+        throw new FileCorruptedOrFalsify("File corrupted or falsify!");
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private interface FieldVisitor {
+
+        void visit(byte tag, ByteBuffer buffer, int length) throws FileCorruptedOrFalsify;
+    }
+
+    /**
+     * Builds a container field by field.
+     */
+    public static class Writer {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        public Writer() {
+            out.write(MAGIC, 0, MAGIC.length);
+            out.write(VERSION);
+        }
+
+        /**
+         * @param tag one of {@link Params} bytes.
+         * @param value non-negative value.
+         * @return this writer.
+         */
+        public Writer put(byte tag, BigInteger value) {
+            return put(tag, value.signum() == 0 ? new byte[0] : BinaryUtils.convertBigIntegerToBytes(value));
+        }
+
+        /**
+         * @param tag one of {@link Params} bytes.
+         * @param value raw bytes, read back unchanged by {@link #parse(ByteBuffer, Map)}.
+         * @return this writer.
+         */
+        public Writer put(byte tag, byte[] value) {
+            out.write(tag);
+            writeVarint(out, value.length);
+            out.write(value, 0, value.length);
+            return this;
+        }
+
+        /**
+         * @return container with footer.
+         */
+        public byte[] toByteArray() {
+            byte[] fields = out.toByteArray();
+            ByteBuffer buffer = ByteBuffer.allocate(fields.length + FOOTER_LENGTH);
+            buffer.put(fields).putInt(fields.length + FOOTER_LENGTH).put(MAGIC);
+            return buffer.array();
+        }
+    }
+}
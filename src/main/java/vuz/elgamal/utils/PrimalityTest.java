@@ -0,0 +1,62 @@
+package vuz.elgamal.utils;
+
+import java.math.BigInteger;
+
+/**
+ * Strategy of probabilistic primality testing used by key generation.
+ */
+@FunctionalInterface
+public interface PrimalityTest {
+
+    /**
+     * @param n odd number greater than 3.
+     * @return true if n is (probably) prime.
+     */
+    boolean isPrime(BigInteger n);
+
+    /**
+     * Miller-Rabin with the same number of rounds for every size, the behaviour of earlier versions.
+     *
+     * @param rounds number of rounds.
+     * @return strategy.
+     */
+    static PrimalityTest fixedRounds(int rounds) {
+        return n -> PrimeUtils.isPrime(n, rounds);
+    }
+
+    /**
+     * Miller-Rabin with the round count picked by size, see {@link PrimeUtils#fipsRounds(int)}.
+     *
+     * @return strategy.
+     */
+    static PrimalityTest fips186() {
+        return n -> PrimeUtils.isPrime(n, PrimeUtils.fipsRounds(n.bitLength()));
+    }
+
+    /**
+     * Baillie-PSW: strong base-2 test plus strong Lucas test, see {@link PrimeUtils#isPrimeBailliePsw(BigInteger)}.
+     *
+     * @return strategy.
+     */
+    static PrimalityTest bailliePsw() {
+        return PrimeUtils::isPrimeBailliePsw;
+    }
+
+    /**
+     * @param name mr, fips or bpsw.
+     * @param rounds rounds of the mr strategy.
+     * @return strategy, null for unknown name.
+     */
+    static PrimalityTest forName(String name, int rounds) {
+        switch (name) {
+            case "mr":
+                return fixedRounds(rounds);
+            case "fips":
+                return fips186();
+            case "bpsw":
+                return bailliePsw();
+            default:
+                return null;
+        }
+    }
+}
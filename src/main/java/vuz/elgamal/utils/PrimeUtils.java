@@ -5,20 +5,35 @@ import java.util.Random;
 
 public class PrimeUtils {
 
+    /** Odd primes below this bound are used to sieve candidates before any Miller-Rabin, see {@link SafePrimeSieve}. */
+    static final int SIEVE_BOUND = 1 << 14;
+    static final int[] SMALL_PRIMES = smallPrimes(SIEVE_BOUND);
+
     public static BigInteger generatePrimeNum(int bitLength) {
-        return BigInteger.probablePrime(bitLength, new Random());
+        return BigInteger.probablePrime(bitLength, RandomSource.current());
     }
 
+    /**
+     * Uniformly distributed number strictly between min and max, by rejection sampling:
+     * random numbers of the bit length of the range are drawn until one falls into it.
+     *
+     * @param min lower bound, exclusive.
+     * @param max upper bound, exclusive.
+     * @return min < n < max.
+     */
     public static BigInteger generateBigIntegerInRange(BigInteger min, BigInteger max) {
-        BigInteger diff = max.subtract(min);
-        BigInteger randomValue = new BigInteger(max.bitLength(), new Random());
-
-        if (randomValue.compareTo(min) < 0) {
-            randomValue = randomValue.add(min);
-        } else if (randomValue.compareTo(max) > 0) {
-            randomValue = randomValue.mod(diff).add(min);
+        BigInteger count = max.subtract(min).subtract(BigInteger.ONE);
+        if (count.signum() <= 0) {
+            throw new IllegalArgumentException("Empty range (" + min + ", " + max + ")");
         }
-        return randomValue;
+        Random random = RandomSource.current();
+        int bits = count.subtract(BigInteger.ONE).bitLength();
+        BigInteger randomValue;
+
+        do {
+            randomValue = new BigInteger(bits, random);
+        } while (randomValue.compareTo(count) >= 0);
+        return randomValue.add(min).add(BigInteger.ONE);
     }
 
     /**
@@ -30,13 +45,16 @@ public class PrimeUtils {
      * @return true - prime, false - composite.
      */
     public static Boolean isPrime(BigInteger n, int rounds) {
-        int s = findS(n.subtract(BigInteger.ONE));
-        BigInteger t = n.divide(BigInteger.TWO.pow(s));
+        if (n.compareTo(BigInteger.valueOf(5)) < 0) {
+            return n.equals(BigInteger.TWO) || n.equals(BigInteger.valueOf(3));
+        }
+        int s = n.subtract(BigInteger.ONE).getLowestSetBit();
+        BigInteger t = n.shiftRight(s);
         BigInteger a;
         BigInteger y;
 
         for (int i = 0; i < rounds; i++) {
-            a = generateBigIntegerInRange(BigInteger.TWO, n.subtract(BigInteger.TWO));
+            a = generateBigIntegerInRange(BigInteger.ONE, n.subtract(BigInteger.ONE));
             y = a.modPow(t, n);
             if (!y.equals(BigInteger.ONE) && !y.equals(n.subtract(BigInteger.ONE))) {
                 int j = 1;
@@ -56,18 +74,204 @@ public class PrimeUtils {
     }
 
     /**
-     * return exponent of 2 such as n = 2^s * x.
+     * Miller-Rabin rounds for a randomly chosen candidate of given size, after FIPS 186-5 Table B.1
+     * (error probability at most 2^-100). Rows are for 512, 1024 and 1536-bit primes, a few bits less still use the row,
+     * so q of a safe prime, one bit shorter than p, gets the same count. Smaller numbers get the worst-case bound of 40 rounds.
      *
-     * @param n input number.
-     * @return exponent
+     * @param bitLength size of the candidate.
+     * @return number of rounds.
      */
-    private static int findS(BigInteger n) {
-        int s = 0;
+    public static int fipsRounds(int bitLength) {
+        if (bitLength >= 1500) {
+            return 4;
+        } else if (bitLength >= 1000) {
+            return 5;
+        } else if (bitLength >= 500) {
+            return 7;
+        }
+        return 40;
+    }
 
-        while (BigInteger.ZERO.equals(n.remainder(BigInteger.TWO))) {
-            n = n.divide(BigInteger.TWO);
-            s++;
+    /**
+     * Baillie-PSW test: trial division by small primes, strong probable prime test to base 2
+     * and strong Lucas probable prime test with Selfridge parameters. No composite passing both tests is known.
+     *
+     * @param n number to check.
+     * @return true - prime, false - composite.
+     */
+    public static boolean isPrimeBailliePsw(BigInteger n) {
+        if (n.compareTo(BigInteger.TWO) < 0) {
+            return false;
+        }
+        if (!n.testBit(0)) {
+            return n.equals(BigInteger.TWO);
+        }
+        if (n.bitLength() <= 31) {
+            int value = n.intValue();
+            for (int prime : SMALL_PRIMES) {
+                if ((long) prime * prime > value) {
+                    return true;
+                }
+                if (value % prime == 0) {
+                    return value == prime;
+                }
+            }
+        } else {
+            for (int prime : SMALL_PRIMES) {
+                if (prime > 1000) {
+                    break;
+                }
+                if (n.mod(BigInteger.valueOf(prime)).signum() == 0) {
+                    return false;
+                }
+            }
+        }
+        return isStrongProbablePrime(n, BigInteger.TWO) && isStrongLucasProbablePrime(n);
+    }
+
+    /*
+        one Miller-Rabin round with fixed base.
+     */
+    private static boolean isStrongProbablePrime(BigInteger n, BigInteger base) {
+        BigInteger nMinusOne = n.subtract(BigInteger.ONE);
+        int s = nMinusOne.getLowestSetBit();
+        BigInteger y = base.modPow(nMinusOne.shiftRight(s), n);
+
+        if (y.equals(BigInteger.ONE) || y.equals(nMinusOne)) {
+            return true;
+        }
+        for (int j = 1; j < s; j++) {
+            y = y.multiply(y).mod(n);
+            if (y.equals(nMinusOne)) {
+                return true;
+            }
+            if (y.equals(BigInteger.ONE)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /*
+        D is the first of 5, -7, 9, -11, ... with Jacobi(D / n) = -1, P = 1, Q = (1 - D) / 4.
+        n + 1 = d * 2^s, n passes if U_d = 0 or V_(d * 2^r) = 0 mod n for some 0 <= r < s.
+     */
+    private static boolean isStrongLucasProbablePrime(BigInteger n) {
+        int d = 5;
+        while (true) {
+            int jacobi = jacobi(d, n);
+            if (jacobi == -1) {
+                break;
+            }
+            if (jacobi == 0 && n.compareTo(BigInteger.valueOf(Math.abs(d))) > 0) {
+                return false;
+            }
+            if (d == -15 && isSquare(n)) {
+                return false;
+            }
+            d = d > 0 ? -d - 2 : -d + 2;
+        }
+        BigInteger bigD = BigInteger.valueOf(d);
+        BigInteger q = BigInteger.valueOf((1 - d) / 4);
+        BigInteger nPlusOne = n.add(BigInteger.ONE);
+        int s = nPlusOne.getLowestSetBit();
+        BigInteger exponent = nPlusOne.shiftRight(s);
+
+        BigInteger u = BigInteger.ONE;
+        BigInteger v = BigInteger.ONE;
+        BigInteger qk = q.mod(n);
+        for (int i = exponent.bitLength() - 2; i >= 0; i--) {
+            u = u.multiply(v).mod(n);
+            v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+            qk = qk.multiply(qk).mod(n);
+            if (exponent.testBit(i)) {
+                BigInteger nextU = half(u.add(v), n);
+                v = half(bigD.multiply(u).add(v), n);
+                u = nextU;
+                qk = qk.multiply(q).mod(n);
+            }
+        }
+        if (u.signum() == 0 || v.signum() == 0) {
+            return true;
+        }
+        for (int r = 1; r < s; r++) {
+            v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+            if (v.signum() == 0) {
+                return true;
+            }
+            qk = qk.multiply(qk).mod(n);
+        }
+        return false;
+    }
+
+    /*
+        x / 2 mod odd n.
+     */
+    private static BigInteger half(BigInteger x, BigInteger n) {
+        x = x.mod(n);
+        return (x.testBit(0) ? x.add(n) : x).shiftRight(1);
+    }
+
+    /*
+        Jacobi symbol (a / n) for small odd a and odd n > 0.
+     */
+    private static int jacobi(int a, BigInteger n) {
+        int result = 1;
+        if (a < 0) {
+            a = -a;
+            if (n.testBit(1)) {
+                result = -result;
+            }
+        }
+        // reciprocity: (a / n) = (n / a) unless a = n = 3 mod 4
+        if ((a & 3) == 3 && n.testBit(1)) {
+            result = -result;
+        }
+        int m = n.mod(BigInteger.valueOf(a)).intValue();
+        int k = a;
+        while (m != 0) {
+            while ((m & 1) == 0) {
+                m >>= 1;
+                if ((k & 7) == 3 || (k & 7) == 5) {
+                    result = -result;
+                }
+            }
+            int t = m;
+            m = k;
+            k = t;
+            if ((m & 3) == 3 && (k & 3) == 3) {
+                result = -result;
+            }
+            m %= k;
+        }
+        return k == 1 ? result : 0;
+    }
+
+    private static boolean isSquare(BigInteger n) {
+        BigInteger root = n.sqrt();
+        return root.multiply(root).equals(n);
+    }
+
+    /*
+        odd primes below bound, sieve of Eratosthenes.
+     */
+    private static int[] smallPrimes(int bound) {
+        boolean[] composite = new boolean[bound];
+        int count = 0;
+        for (int i = 3; i < bound; i += 2) {
+            if (!composite[i]) {
+                count++;
+                for (long j = (long) i * i; j < bound; j += 2L * i) {
+                    composite[(int) j] = true;
+                }
+            }
+        }
+        int[] primes = new int[count];
+        for (int i = 3, k = 0; i < bound; i += 2) {
+            if (!composite[i]) {
+                primes[k++] = i;
+            }
         }
-        return s;
+        return primes;
     }
 }
@@ -0,0 +1,86 @@
+package vuz.elgamal.utils;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Cryptographically secure randomness for key generation, primality tests and signing nonces.
+ * Every thread gets its own instance over its own {@link SecureRandom}, so threads never contend on a shared generator.
+ * Bytes are drawn from the generator in bulk into a buffer and handed out from it, consumed bytes are zeroed.
+ * The generator is pluggable with {@link #setProvider(Supplier)}, e.g. to choose a DRBG algorithm.
+ *
+ * Instances are bound to their thread and must not be shared.
+ */
+public final class RandomSource extends Random {
+
+    private static final long serialVersionUID = 1L;
+    private static final int BUFFER_SIZE = 4096;
+
+    private static volatile Supplier<? extends SecureRandom> provider = SecureRandom::new;
+    private static volatile int generation;
+    private static final ThreadLocal<RandomSource> LOCAL = new ThreadLocal<>();
+
+    private final transient SecureRandom random;
+    private final transient byte[] buffer = new byte[BUFFER_SIZE];
+    private final int sourceGeneration;
+    private int position = BUFFER_SIZE;
+
+    private RandomSource(SecureRandom random, int sourceGeneration) {
+        this.random = random;
+        this.sourceGeneration = sourceGeneration;
+    }
+
+    /**
+     * @return random source of the calling thread.
+     */
+    public static Random current() {
+        RandomSource source = LOCAL.get();
+        if (source == null || source.sourceGeneration != generation) {
+            int currentGeneration = generation;
+            source = new RandomSource(provider.get(), currentGeneration);
+            LOCAL.set(source);
+        }
+        return source;
+    }
+
+    /**
+     * Replace the generator behind every thread's source. Threads switch on their next call of {@link #current()}.
+     *
+     * @param secureRandomProvider creates one generator per thread.
+     */
+    public static synchronized void setProvider(Supplier<? extends SecureRandom> secureRandomProvider) {
+        provider = secureRandomProvider;
+        generation++;
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == BUFFER_SIZE) {
+                random.nextBytes(buffer);
+                position = 0;
+            }
+            int take = Math.min(bytes.length - offset, BUFFER_SIZE - position);
+            System.arraycopy(buffer, position, bytes, offset, take);
+            Arrays.fill(buffer, position, position + take, (byte) 0);
+            position += take;
+            offset += take;
+        }
+    }
+
+    @Override
+    protected int next(int bits) {
+        if (BUFFER_SIZE - position < 4) {
+            random.nextBytes(buffer);
+            position = 0;
+        }
+        int value = (buffer[position] & 0xFF) << 24 | (buffer[position + 1] & 0xFF) << 16
+            | (buffer[position + 2] & 0xFF) << 8 | (buffer[position + 3] & 0xFF);
+        Arrays.fill(buffer, position, position + 4, (byte) 0);
+        position += 4;
+        return value >>> (32 - bits);
+    }
+}
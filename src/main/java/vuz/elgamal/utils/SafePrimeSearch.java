@@ -0,0 +1,110 @@
+package vuz.elgamal.utils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel search of a safe prime p = 2q + 1 with q prime.
+ * Every worker takes q from its own {@link SafePrimeSieve}, so q and 2q + 1 have no small prime factors,
+ * then runs one Fermat test base 2 on p and on q. Only a candidate that passes all of them
+ * goes to the full check of q by the chosen {@link PrimalityTest}. The first worker with a hit wins, the others are cancelled.
+ *
+ * Primality of p follows from q: if q is prime and 2^(p - 1) = 1 mod p, then p is prime (Pocklington).
+ */
+public class SafePrimeSearch {
+
+    private final int bitLength;
+    private final int threads;
+    private final PrimalityTest primalityTest;
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder tested = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param bitLength bit length of p.
+     * @param threads number of workers.
+     * @param primalityTest final check of q.
+     */
+    public SafePrimeSearch(int bitLength, int threads, PrimalityTest primalityTest) {
+        if (bitLength < 16) {
+            throw new IllegalArgumentException("Safe prime must be at least 16 bits");
+        }
+        this.bitLength = bitLength;
+        this.threads = Math.max(1, threads);
+        this.primalityTest = primalityTest;
+    }
+
+    /**
+     * @return safe prime of exactly bitLength bits.
+     */
+    public BigInteger search() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "safe-prime-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Callable<BigInteger>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(this::searchOne);
+        }
+
+        try {
+            return executor.invokeAny(workers);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Safe prime search failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return number of odd q looked at so far by all workers, sieved out ones included.
+     */
+    public long getCandidates() {
+        return candidates.sum();
+    }
+
+    /**
+     * @return number of q that survived the sieve and went to the Fermat test.
+     */
+    public long getTested() {
+        return tested.sum();
+    }
+
+    /**
+     * @return number of tested q, for which q or 2q + 1 failed the Fermat test or q failed the primality test.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private BigInteger searchOne() throws InterruptedException {
+        SafePrimeSieve sieve = new SafePrimeSieve(bitLength, RandomSource.current());
+        long counted = 0;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                BigInteger q = sieve.next();
+                tested.increment();
+                candidates.add(sieve.getScanned() - counted);
+                counted = sieve.getScanned();
+                BigInteger p = q.shiftLeft(1).setBit(0);
+                if (BigInteger.TWO.modPow(p.subtract(BigInteger.ONE), p).equals(BigInteger.ONE)
+                    && BigInteger.TWO.modPow(q.subtract(BigInteger.ONE), q).equals(BigInteger.ONE)
+                    && primalityTest.isPrime(q)) {
+                    return p;
+                }
+                rejected.increment();
+            }
+            throw new InterruptedException();
+        } finally {
+            candidates.add(sieve.getScanned() - counted);
+        }
+    }
+}
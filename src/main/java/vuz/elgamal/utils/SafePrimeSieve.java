@@ -0,0 +1,143 @@
+package vuz.elgamal.utils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Incremental generator of safe prime candidates: odd q such that neither q nor 2q + 1
+ * has a prime factor from {@link PrimeUtils#SMALL_PRIMES}.
+ * A random odd start is drawn once, then windows of consecutive odd numbers q = start + 2k are sieved:
+ * for every small prime s the residue start mod s is kept as int, so the offsets k divisible by s
+ * are two arithmetic progressions with step s, no BigInteger division is made inside a window.
+ * Moving to the next window only updates the int residues. Only survivors are handed out.
+ *
+ * Instances are not thread-safe, use one per worker.
+ */
+public class SafePrimeSieve {
+
+    /** Odd numbers sieved at once. */
+    public static final int WINDOW = 1 << 14;
+
+    /*
+        Small primes packed into products below 2^63, so the residues of a new start are taken
+        with one BigInteger division per group.
+     */
+    private static final long[] PRODUCTS;
+    private static final int[][] GROUPS;
+
+    private final int bits;
+    private final Random random;
+    private final int[] residues = new int[PrimeUtils.SMALL_PRIMES.length];
+    private final boolean[] composite = new boolean[WINDOW];
+    private BigInteger start;
+    private int cursor = WINDOW;
+    private long scanned;
+    private long survivors;
+
+    /**
+     * @param bitLength bit length of the safe prime p = 2q + 1, at least 16.
+     * @param random source of window starts.
+     */
+    public SafePrimeSieve(int bitLength, Random random) {
+        if (bitLength < 16) {
+            throw new IllegalArgumentException("Safe prime must be at least 16 bits");
+        }
+        this.bits = bitLength - 1;
+        this.random = random;
+    }
+
+    /**
+     * @return next q of bitLength - 1 bits that survived the sieve, 2q + 1 survived it too.
+     */
+    public BigInteger next() {
+        while (true) {
+            while (cursor < WINDOW) {
+                int k = cursor++;
+                scanned++;
+                if (!composite[k]) {
+                    BigInteger q = start.add(BigInteger.valueOf(2L * k));
+                    if (q.bitLength() > bits) {
+                        cursor = WINDOW;
+                        break;
+                    }
+                    survivors++;
+                    return q;
+                }
+            }
+            nextWindow();
+        }
+    }
+
+    /**
+     * @return number of odd q looked at, sieved out ones included.
+     */
+    public long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * @return number of q handed out by {@link #next()}.
+     */
+    public long getSurvivors() {
+        return survivors;
+    }
+
+    private void nextWindow() {
+        int[] primes = PrimeUtils.SMALL_PRIMES;
+        if (start != null) {
+            start = start.add(BigInteger.valueOf(2L * WINDOW));
+            for (int i = 0; i < primes.length; i++) {
+                residues[i] = (int) ((residues[i] + 2L * WINDOW) % primes[i]);
+            }
+        }
+        if (start == null || start.bitLength() > bits) {
+            start = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+            int index = 0;
+            for (int g = 0; g < PRODUCTS.length; g++) {
+                long residue = start.remainder(BigInteger.valueOf(PRODUCTS[g])).longValue();
+                for (int s : GROUPS[g]) {
+                    residues[index++] = (int) (residue % s);
+                }
+            }
+        }
+
+        Arrays.fill(composite, false);
+        for (int i = 0; i < primes.length; i++) {
+            int s = primes[i];
+            int r = residues[i];
+            int half = (s + 1) >>> 1;
+            // start + 2k = 0 mod s and 2 * (start + 2k) + 1 = 0 mod s, 2^-1 = (s + 1) / 2
+            cross(s, (int) ((long) (s - r) % s * half % s));
+            cross(s, (int) ((long) ((s >>> 1) - r + s) % s * half % s));
+        }
+        cursor = 0;
+    }
+
+    private void cross(int step, int from) {
+        for (int k = from; k < WINDOW; k += step) {
+            composite[k] = true;
+        }
+    }
+
+    static {
+        int[] primes = PrimeUtils.SMALL_PRIMES;
+        List<Long> products = new ArrayList<>();
+        List<int[]> groups = new ArrayList<>();
+        int from = 0;
+        while (from < primes.length) {
+            long product = 1;
+            int to = from;
+            while (to < primes.length && product <= Long.MAX_VALUE / primes[to]) {
+                product *= primes[to++];
+            }
+            products.add(product);
+            groups.add(Arrays.copyOfRange(primes, from, to));
+            from = to;
+        }
+        PRODUCTS = products.stream().mapToLong(Long::longValue).toArray();
+        GROUPS = groups.toArray(new int[0][]);
+    }
+}
@@ -80,4 +80,16 @@ public class BinaryUtilsTest {
         Map<String, BigInteger> actual = BinaryUtils.parseParams(data);
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void hexStringToBytesTest() {
+        byte[] bytes = {0, 1, (byte) 0x7f, (byte) 0x80, (byte) 0xde, (byte) 0xff};
+        assertEquals(Boolean.TRUE, Arrays.equals(bytes, BinaryUtils.hexStringToBytes(BinaryUtils.bytesToHexString(bytes))));
+        assertEquals(Boolean.TRUE, Arrays.equals(bytes, BinaryUtils.hexStringToBytes("00017F80DEFF")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hexStringToBytesInvalidTest() {
+        BinaryUtils.hexStringToBytes("0g");
+    }
+}
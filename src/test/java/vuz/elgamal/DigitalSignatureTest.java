@@ -3,12 +3,30 @@ package vuz.elgamal;
 import org.junit.Before;
 import org.junit.Test;
 import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.hash.HashAlgorithm;
+import vuz.elgamal.hash.ReadAheadHasher;
+import vuz.elgamal.hash.Stribog256Tree;
+import vuz.elgamal.keys.PrivateKey;
+import vuz.elgamal.keys.PublicKey;
+import vuz.elgamal.utils.BinaryUtils;
+import vuz.elgamal.utils.ParamsContainer;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class DigitalSignatureTest {
 
@@ -34,6 +52,194 @@ public class DigitalSignatureTest {
         digitalSignature.verifySign(FILE_NAME, ELGAMAL_PUB);
     }
 
+    @Test
+    public void interruptedKeyGenerationWritesNothingTest() throws IOException {
+        assertEquals(Boolean.TRUE, digitalSignature.generatePublicAndPrivateKeys());
+        byte[] publicKey = Files.readAllBytes(Paths.get(ELGAMAL_PUB));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(Boolean.FALSE, digitalSignature.generatePublicAndPrivateKeys());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(Boolean.TRUE, Arrays.equals(publicKey, Files.readAllBytes(Paths.get(ELGAMAL_PUB))));
+    }
+
+    @Test
+    public void signAppendsSignatureAndMessageMayContainDeadbeefTest() throws IOException, FileCorruptedOrFalsify {
+        byte[] message = {0x6d, (byte) 0xde, (byte) 0xad, (byte) 0xbe, (byte) 0xef, Params.A, 0x65};
+        File file = new File(FILE_NAME);
+        try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+            fileOutputStream.write(message);
+        }
+
+        digitalSignature.generatePublicAndPrivateKeys();
+        digitalSignature.signFile(FILE_NAME, ELGAMAL);
+        byte[] signed = Files.readAllBytes(file.toPath());
+        assertEquals(Boolean.TRUE, Arrays.equals(message, Arrays.copyOf(signed, message.length)));
+        digitalSignature.verifySign(FILE_NAME, ELGAMAL_PUB);
+    }
+
+    @Test
+    public void detachedSignKeepsFileUntouchedTest() throws IOException, FileCorruptedOrFalsify {
+        File sigFile = new File(DigitalSignature.getSigFileName(FILE_NAME));
+
+        try {
+            digitalSignature.generatePublicAndPrivateKeys();
+            digitalSignature.signFileDetached(FILE_NAME, ELGAMAL);
+            assertEquals(Boolean.TRUE, Arrays.equals(MESSAGE, Files.readAllBytes(new File(FILE_NAME).toPath())));
+            digitalSignature.verifyDetachedSign(FILE_NAME, sigFile.getPath(), ELGAMAL_PUB);
+        } finally {
+            sigFile.delete();
+        }
+    }
+
+    @Test
+    public void signDigestMatchesFileSignatureTest() throws IOException, FileCorruptedOrFalsify {
+        digitalSignature.generatePublicAndPrivateKeys();
+        PrivateKey privateKey = digitalSignature.loadPrivateKey(ELGAMAL);
+        PublicKey publicKey = digitalSignature.loadPublicKey(ELGAMAL_PUB);
+        Path file = Paths.get(FILE_NAME);
+
+        byte[] digest = digitalSignature.hashFile(file);
+        byte[] signature = digitalSignature.signDigest(digest, privateKey);
+        digitalSignature.verifyDetachedSign(file, signature, publicKey);
+        digitalSignature.verifyDigest(digest, digitalSignature.createDetachedSign(file, privateKey), publicKey);
+
+        digest[0] ^= 1;
+        try {
+            digitalSignature.verifyDigest(digest, signature, publicKey);
+            fail();
+        } catch (FileCorruptedOrFalsify expected) {
+            // digest of another message
+        }
+    }
+
+    @Test
+    public void readAheadMatchesMappedHashTest() throws IOException, FileCorruptedOrFalsify {
+        byte[] message = new byte[16 * 1024 * 1024 + 100];
+        new Random(3).nextBytes(message);
+        Path file = Paths.get(FILE_NAME);
+        Files.write(file, message);
+
+        AtomicInteger calls = new AtomicInteger();
+        DigitalSignature readAhead = new DigitalSignature(new ReadAheadHasher(1024 * 1024, 2) {
+            @Override
+            public byte[] hash(FileChannel channel, long position, long length) throws IOException {
+                calls.incrementAndGet();
+                return super.hash(channel, position, length);
+            }
+        });
+        assertArrayEquals(digitalSignature.hashFile(file), readAhead.hashFile(file));
+
+        digitalSignature.generatePublicAndPrivateKeys();
+        readAhead.signFile(FILE_NAME, ELGAMAL);
+        digitalSignature.verifySign(FILE_NAME, ELGAMAL_PUB);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void treeSignatureRecordsChunkSizeTest() throws IOException, FileCorruptedOrFalsify {
+        byte[] message = new byte[5000];
+        new Random(5).nextBytes(message);
+        Path file = Paths.get(FILE_NAME);
+        Files.write(file, message);
+
+        digitalSignature.generatePublicAndPrivateKeys();
+        PrivateKey privateKey = digitalSignature.loadPrivateKey(ELGAMAL);
+        PublicKey publicKey = digitalSignature.loadPublicKey(ELGAMAL_PUB);
+        byte[] signature = digitalSignature.createDetachedSign(file, privateKey, new Stribog256Tree(1024));
+
+        Map<String, BigInteger> params = ParamsContainer.read(signature);
+        assertEquals(BigInteger.valueOf(1024), params.get("C"));
+        assertEquals(BigInteger.valueOf(5000), params.get("S"));
+        digitalSignature.verifyDetachedSign(file, signature, publicKey);
+        Stribog256Tree tree = new Stribog256Tree(1024);
+        byte[] root = tree.root(message);
+        digitalSignature.verifyDigest(tree.signedDigest(message.length, root), signature, publicKey);
+        try {
+            digitalSignature.verifyDigest(root, signature, publicKey);
+            fail();
+        } catch (FileCorruptedOrFalsify expected) {
+            // the bare root is not signed
+        }
+
+        byte[] relabeled = BinaryUtils.joinByteArrays(
+            BinaryUtils.wrapToSignature(new byte[]{(byte) HashAlgorithm.STRIBOG256.getId()}, Params.H),
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(params.get("A")), Params.A),
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(params.get("B")), Params.B));
+        try {
+            digitalSignature.verifyDigest(root, relabeled, publicKey);
+            fail();
+        } catch (FileCorruptedOrFalsify expected) {
+            // relabeled as plain, the signature does not cover the top node 0x01 | left | right as a file
+        }
+
+        message[4999] ^= 1;
+        Files.write(file, message);
+        try {
+            digitalSignature.verifyDetachedSign(file, signature, publicKey);
+            fail();
+        } catch (FileCorruptedOrFalsify expected) {
+            // last chunk changed
+        }
+    }
+
+    @Test
+    public void rangeVerificationTest() throws IOException, FileCorruptedOrFalsify {
+        byte[] message = new byte[10 * 1024];
+        new Random(8).nextBytes(message);
+        Path file = Paths.get(FILE_NAME);
+        Files.write(file, message);
+
+        digitalSignature.generatePublicAndPrivateKeys();
+        PublicKey publicKey = digitalSignature.loadPublicKey(ELGAMAL_PUB);
+        byte[] signature = digitalSignature.createDetachedSign(file, digitalSignature.loadPrivateKey(ELGAMAL), new Stribog256Tree(1024), true);
+        digitalSignature.verifyDetachedSign(file, signature, publicKey);
+
+        message[9000] ^= 1;
+        Files.write(file, message);
+        digitalSignature.verifyRange(file, signature, 100, 4000, publicKey);
+        try {
+            digitalSignature.verifyRange(file, signature, 8500, 1000, publicKey);
+            fail();
+        } catch (FileCorruptedOrFalsify expected) {
+            // changed byte is inside the range
+        }
+        try {
+            digitalSignature.verifyRange(file, digitalSignature.signDigest(new byte[32], digitalSignature.loadPrivateKey(ELGAMAL)), 0, 1, publicKey);
+            fail();
+        } catch (FileCorruptedOrFalsify expected) {
+            // plain signature has no tree
+        }
+    }
+
+    @Test
+    public void legacySignatureStillVerifiesTest() throws IOException, FileCorruptedOrFalsify {
+        digitalSignature.generatePublicAndPrivateKeys();
+        byte[] digest = digitalSignature.hashFile(Paths.get(FILE_NAME));
+        Map<String, BigInteger> params = ParamsContainer.read(digitalSignature.signDigest(digest, digitalSignature.loadPrivateKey(ELGAMAL)));
+
+        byte[] legacy = BinaryUtils.joinByteArrays(
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(params.get("H")), Params.H),
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(params.get("A")), Params.A),
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(params.get("B")), Params.B)
+        );
+        digitalSignature.verifyDigest(digest, legacy, digitalSignature.loadPublicKey(ELGAMAL_PUB));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void signDigestRejectsWrongLengthTest() {
+        digitalSignature.signDigest(new byte[31], new PrivateKey(BigInteger.valueOf(23), BigInteger.valueOf(5), BigInteger.valueOf(7)));
+    }
+
+    @Test(expected = FileCorruptedOrFalsify.class)
+    public void signDigestReportsUnwritableSignatureTest() throws FileCorruptedOrFalsify {
+        digitalSignature.generatePublicAndPrivateKeys();
+        digitalSignature.signDigest(BinaryUtils.bytesToHexString(new byte[32]), ELGAMAL, "src/test/java/vuz/elgamal/data");
+    }
+
     @Test(expected = FileCorruptedOrFalsify.class)
     public void verifyCorruptedAndThrowExceptionTest() throws FileCorruptedOrFalsify {
         digitalSignature.verifySign(FILE_NAME_CORRUPTED, ELGAMAL_PUB_CORRUPTED);
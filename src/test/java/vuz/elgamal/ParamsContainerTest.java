@@ -0,0 +1,114 @@
+package vuz.elgamal;
+
+import org.junit.Test;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.utils.BinaryUtils;
+import vuz.elgamal.utils.ParamsContainer;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParamsContainerTest {
+
+    private static final BigInteger DEADBEEF = new BigInteger("deadbeefdeadbeef00deadbeef", 16);
+
+    @Test
+    public void writeAndParseTest() throws FileCorruptedOrFalsify {
+        BigInteger large = BigInteger.ONE.shiftLeft(2048).subtract(BigInteger.ONE);
+        byte[] data = new ParamsContainer.Writer()
+            .put(Params.P, large)
+            .put(Params.G, DEADBEEF)
+            .put(Params.Y, BigInteger.ZERO)
+            .toByteArray();
+
+        Map<String, BigInteger> expected = Map.of("P", large, "G", DEADBEEF, "Y", BigInteger.ZERO);
+        assertEquals(expected, ParamsContainer.read(data));
+        assertEquals(expected, ParamsContainer.parse(ByteBuffer.wrap(data)));
+        assertTrue(data.length <= ParamsContainer.maxLength(large.add(BigInteger.ONE), 3));
+    }
+
+    @Test
+    public void rawBytesKeepLeadingZerosTest() throws FileCorruptedOrFalsify, IOException {
+        byte[] raw = {0, 0, 1, 2, 0};
+        byte[] data = new ParamsContainer.Writer()
+            .put(Params.H, BigInteger.TWO)
+            .put(Params.T, raw)
+            .put(Params.S, new byte[0])
+            .toByteArray();
+
+        Map<String, ByteBuffer> rawValues = new HashMap<>();
+        Map<String, BigInteger> params = ParamsContainer.read(data, rawValues);
+        assertEquals(Map.of("H", BigInteger.TWO, "S", BigInteger.ZERO), params);
+        assertEquals(Set.of("T"), rawValues.keySet());
+        ByteBuffer value = rawValues.get("T");
+        assertTrue(value.isReadOnly());
+        byte[] read = new byte[value.remaining()];
+        value.get(read);
+        assertArrayEquals(raw, read);
+        assertEquals(params, ParamsContainer.read(data));
+    }
+
+    @Test
+    public void readLegacyTest() throws FileCorruptedOrFalsify, IOException {
+        byte[] data = BinaryUtils.joinByteArrays(
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(BigInteger.valueOf(1337)), Params.P),
+            BinaryUtils.wrapToSignature(BinaryUtils.convertBigIntegerToBytes(BigInteger.valueOf(1237)), Params.G)
+        );
+        assertEquals(Map.of("P", BigInteger.valueOf(1337), "G", BigInteger.valueOf(1237)), ParamsContainer.read(data));
+    }
+
+    @Test
+    public void lastIndexOfTest() throws IOException, FileCorruptedOrFalsify {
+        byte[] sign = new ParamsContainer.Writer().put(Params.A, DEADBEEF).put(Params.B, DEADBEEF).toByteArray();
+        byte[] message = DEADBEEF.toByteArray();
+        byte[] signed = BinaryUtils.joinByteArrays(message, sign);
+
+        int start = ParamsContainer.lastIndexOf(signed);
+        assertEquals(message.length, start);
+        assertEquals(Map.of("A", DEADBEEF, "B", DEADBEEF), ParamsContainer.read(Arrays.copyOfRange(signed, start, signed.length)));
+        assertEquals(-1, ParamsContainer.lastIndexOf(message));
+        assertEquals(-1, ParamsContainer.lastIndexOf(Arrays.copyOfRange(sign, 1, sign.length)));
+    }
+
+    @Test
+    public void maxLengthWithinSignTailTest() {
+        for (int bits : new int[]{64, 512, 1024, 2048, 4096}) {
+            BigInteger p = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+            assertTrue(ParamsContainer.maxLength(p, 2) <= BinaryUtils.maxSignLength(p));
+        }
+    }
+
+    @Test(expected = FileCorruptedOrFalsify.class)
+    public void truncatedTest() throws FileCorruptedOrFalsify {
+        byte[] data = new ParamsContainer.Writer().put(Params.A, DEADBEEF).toByteArray();
+        ParamsContainer.read(Arrays.copyOf(data, data.length - 1));
+    }
+
+    @Test(expected = FileCorruptedOrFalsify.class)
+    public void valueLengthOutOfBoundsTest() throws FileCorruptedOrFalsify {
+        byte[] data = new ParamsContainer.Writer().put(Params.A, DEADBEEF).toByteArray();
+        data[4] = 0x7f;
+        ParamsContainer.read(data);
+    }
+
+    @Test(expected = FileCorruptedOrFalsify.class)
+    public void duplicateTagTest() throws FileCorruptedOrFalsify {
+        ParamsContainer.read(new ParamsContainer.Writer().put(Params.A, DEADBEEF).put(Params.A, DEADBEEF).toByteArray());
+    }
+
+    @Test(expected = FileCorruptedOrFalsify.class)
+    public void unsupportedVersionTest() throws FileCorruptedOrFalsify {
+        byte[] data = new ParamsContainer.Writer().put(Params.A, DEADBEEF).toByteArray();
+        data[2] = ParamsContainer.VERSION + 1;
+        ParamsContainer.read(data);
+    }
+}
@@ -47,4 +47,34 @@ public class PrimeUtilsTest {
 
         assertEquals(Boolean.TRUE, n.compareTo(min) > 0 && n.compareTo(max) < 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bailliePswAgreesWithTrialDivisionTest() {
+        for (int n = 0; n < 100000; n++) {
+            BigInteger value = BigInteger.valueOf(n);
+            assertEquals(value.isProbablePrime(50), PrimeUtils.isPrimeBailliePsw(value));
+        }
+    }
+
+    /*
+        3825123056546413051 is a strong pseudoprime to bases 2..23, only the Lucas part rejects it.
+        4294967297 = 2^32 + 1 is a Fermat pseudoprime to base 2.
+     */
+    @Test
+    public void bailliePswPseudoprimesTest() {
+        BigInteger prime = new BigInteger("9889948815488436816384279237429048107101076749293300249261929871340230212059029980727015514604209277241674619203119627712871406905497819926494136501920562791237509891649175990984634829780582020406098700551046971371347511006218984196165261746963272966735509");
+        assertEquals(Boolean.TRUE, PrimeUtils.isPrimeBailliePsw(prime));
+        assertEquals(Boolean.FALSE, PrimeUtils.isPrimeBailliePsw(prime.subtract(BigInteger.TWO)));
+        assertEquals(Boolean.FALSE, PrimeUtils.isPrimeBailliePsw(new BigInteger("3825123056546413051")));
+        assertEquals(Boolean.FALSE, PrimeUtils.isPrimeBailliePsw(BigInteger.valueOf(1009L * 1013 * 1019 * 1021)));
+        assertEquals(Boolean.FALSE, PrimeUtils.isPrimeBailliePsw(BigInteger.valueOf(4294967297L)));
+    }
+
+    @Test
+    public void fipsRoundsTest() {
+        assertEquals(40, PrimeUtils.fipsRounds(256));
+        assertEquals(7, PrimeUtils.fipsRounds(511));
+        assertEquals(5, PrimeUtils.fipsRounds(1023));
+        assertEquals(4, PrimeUtils.fipsRounds(2047));
+    }
+}
@@ -0,0 +1,74 @@
+package vuz.elgamal;
+
+import org.junit.Test;
+import vuz.elgamal.utils.PrimeUtils;
+import vuz.elgamal.utils.RandomSource;
+
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class RandomSourceTest {
+
+    @Test
+    public void rangeIsCoveredAndNeverLeftTest() {
+        int[] hits = new int[10];
+        for (int i = 0; i < 10000; i++) {
+            int n = PrimeUtils.generateBigIntegerInRange(BigInteger.valueOf(3), BigInteger.TEN).intValue();
+            assertEquals(Boolean.TRUE, n > 3 && n < 10);
+            hits[n]++;
+        }
+        for (int n = 4; n < 10; n++) {
+            assertEquals(Boolean.TRUE, hits[n] > 1000);
+        }
+    }
+
+    @Test
+    public void threadsGetIndependentValuesTest() throws InterruptedException {
+        Set<BigInteger> values = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    values.add(new BigInteger(128, RandomSource.current()));
+                }
+            });
+        }
+        executor.shutdown();
+        assertEquals(Boolean.TRUE, executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(16000, values.size());
+    }
+
+    @Test
+    public void providerIsPluggableTest() {
+        try {
+            byte[] first = new byte[5000];
+            byte[] second = new byte[5000];
+            RandomSource.setProvider(() -> seeded());
+            RandomSource.current().nextBytes(first);
+            RandomSource.setProvider(() -> seeded());
+            RandomSource.current().nextBytes(second);
+            assertEquals(Boolean.TRUE, Arrays.equals(first, second));
+        } finally {
+            RandomSource.setProvider(SecureRandom::new);
+        }
+    }
+
+    private static SecureRandom seeded() {
+        try {
+            SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+            random.setSeed(42);
+            return random;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
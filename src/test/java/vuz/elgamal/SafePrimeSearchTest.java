@@ -0,0 +1,30 @@
+package vuz.elgamal;
+
+import org.junit.Test;
+import vuz.elgamal.utils.PrimalityTest;
+import vuz.elgamal.utils.SafePrimeSearch;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class SafePrimeSearchTest {
+
+    @Test
+    public void searchTest() throws InterruptedException {
+        PrimalityTest[] tests = {PrimalityTest.fixedRounds(40), PrimalityTest.fips186(), PrimalityTest.bailliePsw()};
+        int[] sizes = {16, 128, 256};
+
+        for (int i = 0; i < sizes.length; i++) {
+            int bits = sizes[i];
+            SafePrimeSearch search = new SafePrimeSearch(bits, 2, tests[i]);
+            BigInteger p = search.search();
+
+            assertEquals(bits, p.bitLength());
+            assertEquals(Boolean.TRUE, p.isProbablePrime(64));
+            assertEquals(Boolean.TRUE, p.shiftRight(1).isProbablePrime(64));
+            assertEquals(Boolean.TRUE, search.getCandidates() > 0);
+            assertEquals(Boolean.TRUE, search.getRejected() < search.getTested());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package vuz.elgamal;
+
+import org.junit.Test;
+import vuz.elgamal.utils.SafePrimeSieve;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SafePrimeSieveTest {
+
+    private static final int[] PRIMES = {3, 5, 7, 11, 13, 101, 8191, 16381};
+
+    @Test
+    public void survivorsHaveNoSmallFactorsTest() {
+        for (int bits : new int[]{16, 512}) {
+            SafePrimeSieve sieve = new SafePrimeSieve(bits, new Random(bits));
+
+            for (int i = 0; i < 2000; i++) {
+                BigInteger q = sieve.next();
+                BigInteger p = q.shiftLeft(1).setBit(0);
+                assertEquals(bits - 1, q.bitLength());
+                assertEquals(Boolean.TRUE, q.testBit(0));
+                for (int prime : PRIMES) {
+                    BigInteger s = BigInteger.valueOf(prime);
+                    assertEquals(Boolean.TRUE, q.mod(s).signum() != 0 && p.mod(s).signum() != 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fewCandidatesSurviveTest() {
+        SafePrimeSieve sieve = new SafePrimeSieve(2048, new Random(1));
+        for (int i = 0; i < 1000; i++) {
+            sieve.next();
+        }
+        assertEquals(Boolean.TRUE, sieve.getSurvivors() * 20 < sieve.getScanned());
+    }
+}
@@ -0,0 +1,47 @@
+package vuz.elgamal.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchSignerTest {
+
+    private static final String ELGAMAL_PUB = "elgamal.pub";
+    private static final String ELGAMAL = "elgamal";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DigitalSignature digitalSignature = new DigitalSignature();
+
+    @Test
+    public void signDirectoryTest() throws IOException, InterruptedException, FileCorruptedOrFalsify {
+        Path dir = folder.getRoot().toPath();
+        for (int i = 0; i < 5; i++) {
+            Files.write(dir.resolve("file" + i + ".txt"), ("message " + i).getBytes());
+        }
+        Files.createDirectory(dir.resolve("nested"));
+        Files.write(dir.resolve("nested").resolve("file.txt"), new byte[100_000]);
+
+        digitalSignature.generatePublicAndPrivateKeys();
+        List<Path> files = BatchFiles.collect(dir);
+        BatchSigner signer = new BatchSigner(digitalSignature, digitalSignature.loadPrivateKey(ELGAMAL), true, 3);
+        BatchSummary summary = signer.sign(files, result -> { });
+
+        assertEquals(6, summary.getFiles());
+        assertEquals(0, summary.getFailed());
+        for (Path file : files) {
+            digitalSignature.verifyDetachedSign(file.toString(), DigitalSignature.getSigFileName(file.toString()), ELGAMAL_PUB);
+        }
+        assertEquals(6, BatchFiles.collect(dir).size());
+    }
+}
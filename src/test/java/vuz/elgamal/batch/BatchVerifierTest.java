@@ -0,0 +1,76 @@
+package vuz.elgamal.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchVerifierTest {
+
+    private static final String ELGAMAL_PUB = "elgamal.pub";
+    private static final String ELGAMAL = "elgamal";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DigitalSignature digitalSignature = new DigitalSignature();
+
+    @Test
+    public void verifyDirectoryTest() throws IOException, InterruptedException, FileCorruptedOrFalsify {
+        Path dir = folder.getRoot().toPath();
+        for (int i = 0; i < 8; i++) {
+            Files.write(dir.resolve("file" + i), ("message " + i).getBytes());
+        }
+        digitalSignature.generatePublicAndPrivateKeys();
+        List<Path> files = BatchFiles.collect(dir);
+        new BatchSigner(digitalSignature, digitalSignature.loadPrivateKey(ELGAMAL), false, 2).sign(files, result -> { });
+        Files.write(dir.resolve("file3"), new byte[]{0x0}, StandardOpenOption.WRITE);
+
+        try (BatchVerifier verifier = new BatchVerifier(digitalSignature, digitalSignature.loadPublicKey(ELGAMAL_PUB), false, 3)) {
+            BatchSummary summary = verifier.verify(files, result -> { });
+            assertEquals(8, summary.getFiles());
+            assertEquals(1, summary.getFailed());
+
+            Queue<BatchResult> results = new ConcurrentLinkedQueue<>();
+            CountDownLatch done = new CountDownLatch(1);
+            verifier.publish(files).subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(BatchResult item) {
+                    results.add(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+            assertEquals(Boolean.TRUE, done.await(1, TimeUnit.MINUTES));
+            assertEquals(8, results.size());
+            assertEquals(7, results.stream().filter(BatchResult::isSuccess).count());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package vuz.elgamal.hash;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ReadAheadHasherTest {
+
+    /*
+        Buffer of 1000 bytes is not a multiple of the block, so blocks are split between buffers.
+     */
+    @Test
+    public void sameHashAsDigestTest() throws IOException {
+        byte[] message = new byte[100_000];
+        new Random(9).nextBytes(message);
+        Path file = Files.createTempFile("ahead", ".bin");
+
+        try (FileChannel channel = FileChannel.open(Files.write(file, message))) {
+            for (ReadAheadHasher hasher : new ReadAheadHasher[]{new ReadAheadHasher(1000, 2), new ReadAheadHasher(4096, 3), new ReadAheadHasher()}) {
+                assertArrayEquals(digest(channel, 0, message.length), hasher.hash(channel, 0, message.length));
+                assertArrayEquals(digest(channel, 777, 50_000), hasher.hash(channel, 777, 50_000));
+                assertArrayEquals(digest(channel, 5, 0), hasher.hash(channel, 5, 0));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void regionBeyondEndOfFileTest() throws IOException {
+        Path file = Files.createTempFile("ahead", ".bin");
+
+        try (FileChannel channel = FileChannel.open(Files.write(file, new byte[10_000]))) {
+            try {
+                new ReadAheadHasher(1024, 2).hash(channel, 0, 20_000);
+                fail();
+            } catch (EOFException expected) {
+                // file is shorter than the region
+            }
+            assertEquals(10_000, channel.size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static byte[] digest(FileChannel channel, long position, long length) throws IOException {
+        Stribog256Digest digest = new Stribog256Digest();
+        digest.update(channel, position, length);
+        return digest.digest();
+    }
+}
@@ -0,0 +1,45 @@
+package vuz.elgamal.hash;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class Stribog256BatchTest {
+
+    /*
+        Lengths differ, so state left by a long message must not leak into the next short one.
+     */
+    @Test
+    public void sameHashAsFastStribog256Test() {
+        Random random = new Random(7);
+        int[] lengths = {0, 1, 31, 63, 64, 65, 127, 128, 129, 1000, 4096 + 17, 5, 200, 64, 0, 3000, 77};
+        byte[][] messages = new byte[lengths.length][];
+        for (int i = 0; i < lengths.length; i++) {
+            messages[i] = new byte[lengths[i]];
+            random.nextBytes(messages[i]);
+        }
+
+        Stribog256Batch batch = new Stribog256Batch();
+        FastStribog256 fast = new FastStribog256();
+        for (int run = 0; run < 2; run++) {
+            byte[][] hashes = batch.digest(messages);
+            assertEquals(messages.length, hashes.length);
+            for (int i = 0; i < messages.length; i++) {
+                assertArrayEquals(fast.getHash(messages[i]), hashes[i]);
+            }
+        }
+    }
+
+    @Test
+    public void emptyAndSingleBatchTest() {
+        byte[] message = "message".getBytes();
+        Stribog256Batch batch = new Stribog256Batch();
+
+        assertEquals(0, batch.digest().length);
+        assertArrayEquals(new FastStribog256().getHash(message), batch.digest(Arrays.asList(message))[0]);
+    }
+}
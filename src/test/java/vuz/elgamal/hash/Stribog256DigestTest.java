@@ -0,0 +1,63 @@
+package vuz.elgamal.hash;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class Stribog256DigestTest {
+
+    private final Random random = new Random(7);
+
+    @Test
+    public void wholeMessageTest() {
+        byte[] data = randomBytes(1000);
+        Stribog256 stribog = new Stribog256();
+        stribog.fillBuffer(data);
+
+        assertEquals(Boolean.TRUE, Arrays.equals(stribog.getHash(), new Stribog256Digest().digest(data)));
+    }
+
+    /*
+        Segments are supplied from the end of the message, see Stribog256Digest javadoc.
+     */
+    @Test
+    public void segmentsFromEndTest() {
+        FastStribog256 fast = new FastStribog256();
+        Stribog256Digest digest = new Stribog256Digest();
+
+        for (int len : new int[]{0, 5, 64, 100, 640, 3001}) {
+            byte[] data = randomBytes(len);
+            int end = len;
+            while (end > 0) {
+                int segment = Math.min(end, random.nextInt(150) + 1);
+                digest.update(data, end - segment, segment);
+                end -= segment;
+            }
+            assertEquals(Boolean.TRUE, Arrays.equals(fast.getHash(data), digest.digest()));
+        }
+    }
+
+    @Test
+    public void directByteBufferTest() {
+        byte[] data = randomBytes(2048 + 13);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data).flip();
+        Stribog256Digest digest = new Stribog256Digest();
+
+        for (int end = data.length; end > 0; end -= 300) {
+            buffer.limit(end).position(Math.max(0, end - 300));
+            digest.update(buffer);
+        }
+        assertEquals(Boolean.TRUE, Arrays.equals(new FastStribog256().getHash(data), digest.digest()));
+    }
+
+    private byte[] randomBytes(int len) {
+        byte[] data = new byte[len];
+        random.nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,142 @@
+package vuz.elgamal.hash;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class Stribog256TreeTest {
+
+    private static final int CHUNK = 1024;
+
+    /*
+        5 chunks: the left subtree takes 4 of them, the last chunk is shorter.
+     */
+    @Test
+    public void rootTest() {
+        byte[] message = new byte[4 * CHUNK + 100];
+        new Random(3).nextBytes(message);
+        byte[][] leaves = new byte[5][];
+        for (int i = 0; i < 5; i++) {
+            leaves[i] = Stribog256Tree.leaf(message, i * CHUNK, Math.min(CHUNK, message.length - i * CHUNK));
+        }
+        byte[] left = Stribog256Tree.node(Stribog256Tree.node(leaves[0], leaves[1]), Stribog256Tree.node(leaves[2], leaves[3]));
+        byte[] expected = Stribog256Tree.node(left, leaves[4]);
+
+        assertArrayEquals(expected, new Stribog256Tree(CHUNK).root(message));
+        assertArrayEquals(expected, new Stribog256Tree(CHUNK, new ForkJoinPool(3)).root(message));
+    }
+
+    @Test
+    public void singleChunkIsLeafTest() {
+        byte[] message = "message".getBytes();
+        byte[] prefixed = new byte[message.length + 1];
+        System.arraycopy(message, 0, prefixed, 1, message.length);
+
+        assertArrayEquals(new FastStribog256().getHash(prefixed), new Stribog256Tree(CHUNK).root(message));
+        assertArrayEquals(Stribog256Tree.leaf(new byte[0], 0, 0), new Stribog256Tree(CHUNK).root(new byte[0]));
+        assertEquals(1, new Stribog256Tree(CHUNK).chunks(0));
+        assertEquals(2, new Stribog256Tree(CHUNK).chunks(CHUNK + 1));
+    }
+
+    @Test
+    public void fileRootTest() throws IOException {
+        byte[] message = new byte[37 * CHUNK + 5];
+        new Random(4).nextBytes(message);
+        Path file = Files.createTempFile("tree", ".bin");
+
+        try (FileChannel channel = FileChannel.open(Files.write(file, message))) {
+            Stribog256Tree tree = new Stribog256Tree(CHUNK);
+            assertArrayEquals(tree.root(message), tree.root(channel, message.length));
+            assertArrayEquals(tree.root(Arrays.copyOf(message, 3 * CHUNK)), tree.root(channel, 3 * CHUNK));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /*
+        The range root needs only the chunks of the range: a change elsewhere is not noticed,
+        a change inside the range or in a stored digest on its path is. Chunks 8..11 form the right subtree
+        of the root, its digest is at 2 * 8 in pre-order.
+     */
+    @Test
+    public void rangeRootTest() throws IOException {
+        byte[] message = new byte[11 * CHUNK + 300];
+        new Random(6).nextBytes(message);
+        Path file = Files.createTempFile("tree", ".bin");
+
+        try (FileChannel channel = FileChannel.open(Files.write(file, message))) {
+            Stribog256Tree tree = new Stribog256Tree(CHUNK);
+            byte[][] nodes = tree.nodes(channel, message.length);
+            byte[] root = tree.root(message);
+            assertEquals(Stribog256Tree.nodeCount(12), nodes.length);
+            assertArrayEquals(root, nodes[0]);
+
+            long[][] ranges = {{0, 1}, {5 * CHUNK - 1, 2}, {3 * CHUNK, 4 * CHUNK}, {message.length - 1, 1}, {0, message.length}};
+            ByteBuffer joined = ByteBuffer.allocate(nodes.length * 32 + 5);
+            joined.position(5);
+            for (byte[] node : nodes) {
+                joined.put(node);
+            }
+            joined.position(5);
+            for (long[] range : ranges) {
+                assertArrayEquals(root, tree.root(channel, message.length, nodes, range[0], range[1]));
+                assertArrayEquals(root, tree.root(channel, message.length, joined.asReadOnlyBuffer(), range[0], range[1]));
+            }
+            assertEquals(5, joined.position());
+
+            message[7 * CHUNK] ^= 1;
+            Files.write(file, message);
+            assertArrayEquals(root, tree.root(channel, message.length, nodes, 0, 7 * CHUNK));
+            assertNotEquals(Arrays.toString(root), Arrays.toString(tree.root(channel, message.length, nodes, 7 * CHUNK, 1)));
+
+            nodes[nodes.length - 1] = new byte[32];
+            assertArrayEquals(root, tree.root(channel, message.length, nodes, 0, 1));
+            nodes[16] = new byte[32];
+            assertNotEquals(Arrays.toString(root), Arrays.toString(tree.root(channel, message.length, nodes, 0, 1)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void signedDigestBindsChunkSizeAndLengthTest() {
+        byte[] message = new byte[3 * CHUNK];
+        new Random(9).nextBytes(message);
+        Stribog256Tree tree = new Stribog256Tree(CHUNK);
+        byte[] root = tree.root(message);
+        byte[] signed = tree.signedDigest(message.length, root);
+
+        assertEquals(32, signed.length);
+        assertNotEquals(Arrays.toString(root), Arrays.toString(signed));
+        assertNotEquals(Arrays.toString(signed), Arrays.toString(tree.signedDigest(message.length + 1, root)));
+        assertNotEquals(Arrays.toString(signed), Arrays.toString(new Stribog256Tree(2 * CHUNK).signedDigest(message.length, root)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeOutsideMessageTest() throws IOException {
+        Path file = Files.createTempFile("tree", ".bin");
+
+        try (FileChannel channel = FileChannel.open(Files.write(file, new byte[2 * CHUNK]))) {
+            Stribog256Tree tree = new Stribog256Tree(CHUNK);
+            tree.root(channel, 2 * CHUNK, tree.nodes(channel, 2 * CHUNK), CHUNK, CHUNK + 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSizeMustBePowerOfTwoTest() {
+        new Stribog256Tree(3000);
+    }
+}
@@ -0,0 +1,158 @@
+package vuz.elgamal.keys;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.Params;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.utils.BinaryUtils;
+import vuz.elgamal.utils.ParamsContainer;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KeyCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void hitAndReloadOnChangeTest() throws IOException, FileCorruptedOrFalsify {
+        Path file = writeKey("elgamal", Params.X, 7);
+        try (KeyCache cache = new KeyCache()) {
+            KeyCache.Lease lease = cache.leasePrivateKey(file);
+            PrivateKey key = lease.getKey();
+            try (KeyCache.Lease again = cache.leasePrivateKey(file)) {
+                assertSame(key, again.getKey());
+            }
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+
+            writeKey("elgamal", Params.X, 9);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+            try (KeyCache.Lease reloaded = cache.leasePrivateKey(file)) {
+                assertNotSame(key, reloaded.getKey());
+                assertEquals(BigInteger.valueOf(9), reloaded.getKey().getX());
+            }
+            assertEquals(BigInteger.valueOf(7), key.getX());
+            lease.close();
+            assertTrue(key.isDestroyed());
+            assertEquals(2, cache.getMisses());
+        }
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedTest() throws IOException, FileCorruptedOrFalsify {
+        Path first = writeKey("first", Params.X, 3);
+        Path second = writeKey("second", Params.X, 5);
+        Path third = writeKey("third", Params.X, 7);
+        Path pub = writeKey("elgamal.pub", Params.Y, 10);
+
+        KeyCache cache = new KeyCache(2, false);
+        PrivateKey firstKey = lease(cache, first);
+        PrivateKey secondKey = lease(cache, second);
+        lease(cache, first);
+        lease(cache, third);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(secondKey.isDestroyed());
+        assertFalse(firstKey.isDestroyed());
+        assertSame(firstKey, lease(cache, first));
+
+        PublicKey publicKey = cache.publicKey(pub);
+        assertEquals(BigInteger.valueOf(10), publicKey.getY());
+        cache.close();
+        assertTrue(firstKey.isDestroyed());
+        assertEquals(0, cache.size());
+    }
+
+    /*
+        One slot for two files: every lease of one file evicts the other one, often while another thread still signs with it.
+     */
+    @Test
+    public void evictionWaitsForLeasesTest() throws Exception {
+        Path[] files = {writeKey("first", Params.X, 3), writeKey("second", Params.X, 5)};
+        KeyCache cache = new KeyCache(1, false);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    Path file = files[(thread + i) % 2];
+                    try (KeyCache.Lease lease = cache.leasePrivateKey(file)) {
+                        BigInteger x = lease.getKey().getX();
+                        Thread.yield();
+                        assertEquals(x, lease.getKey().getX());
+                    }
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(cache.getEvictions() > 0);
+
+        PrivateKey last = lease(cache, files[0]);
+        cache.close();
+        assertTrue(last.isDestroyed());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void destroyedKeyCannotSignTest() {
+        PrivateKey key = new PrivateKey(BigInteger.valueOf(23), BigInteger.valueOf(5), BigInteger.valueOf(7));
+        key.startNoncePool(4, 1);
+        key.destroy();
+        assertEquals(null, key.getNoncePool());
+        key.getX();
+    }
+
+    @Test
+    public void digitalSignatureUsesCacheTest() throws IOException, FileCorruptedOrFalsify {
+        Path file = writeKey("elgamal", Params.X, 7);
+        String sigFile = folder.getRoot().toPath().resolve("digest.sig").toString();
+        KeyCache cache = new KeyCache();
+        DigitalSignature digitalSignature = new DigitalSignature(cache);
+
+        digitalSignature.signDigest(BinaryUtils.bytesToHexString(new byte[32]), file.toString(), sigFile);
+        digitalSignature.signDigest(BinaryUtils.bytesToHexString(new byte[32]), file.toString(), sigFile);
+        assertEquals(1, cache.getHits());
+        assertNotSame(digitalSignature.loadPrivateKey(file.toString()), digitalSignature.loadPrivateKey(file.toString()));
+    }
+
+    private static PrivateKey lease(KeyCache cache, Path file) throws IOException, FileCorruptedOrFalsify {
+        try (KeyCache.Lease lease = cache.leasePrivateKey(file)) {
+            return lease.getKey();
+        }
+    }
+
+    private Path writeKey(String name, byte param, long value) throws IOException {
+        byte[] data = new ParamsContainer.Writer()
+            .put(Params.P, BigInteger.valueOf(23))
+            .put(Params.G, BigInteger.valueOf(5))
+            .put(param, BigInteger.valueOf(value))
+            .toByteArray();
+        return Files.write(folder.getRoot().toPath().resolve(name), data);
+    }
+}
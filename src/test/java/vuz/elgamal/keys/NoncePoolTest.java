@@ -0,0 +1,75 @@
+package vuz.elgamal.keys;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NoncePoolTest {
+
+    @Test
+    public void noncesSignOnceTest() throws InterruptedException {
+        Random random = new Random(10);
+        BigInteger p = safePrime(random);
+        BigInteger g = BigInteger.valueOf(3);
+        BigInteger x = new BigInteger(100, random);
+        PrivateKey privateKey = new PrivateKey(p, g, x);
+        PublicKey publicKey = new PublicKey(p, g, g.modPow(x, p));
+        BigInteger n = p.subtract(BigInteger.ONE);
+
+        try (NoncePool pool = new NoncePool(privateKey, 8, 2)) {
+            for (int i = 0; i < 100 && pool.size() < 8; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(8, pool.size());
+
+            Set<BigInteger> seen = new HashSet<>();
+            for (int i = 0; i < 20; i++) {
+                Nonce nonce = pool.take();
+                BigInteger hash = new BigInteger(64, random);
+                BigInteger a = nonce.getA();
+                BigInteger b = hash.subtract(x.multiply(a)).mod(n).multiply(nonce.takeInverse()).mod(n);
+                assertTrue(publicKey.checkEquation(hash, a, b));
+                assertTrue(seen.add(a));
+                try {
+                    nonce.takeInverse();
+                    fail("Nonce used twice");
+                } catch (IllegalStateException expected) {
+                    // ok
+                }
+            }
+        }
+    }
+
+    @Test
+    public void closeDiscardsPoolTest() throws InterruptedException {
+        Random random = new Random(11);
+        BigInteger p = safePrime(random);
+        NoncePool pool = new NoncePool(new PrivateKey(p, BigInteger.TWO, BigInteger.TEN), 4, 1);
+        for (int i = 0; i < 100 && pool.size() < 4; i++) {
+            Thread.sleep(50);
+        }
+        pool.close();
+        assertEquals(0, pool.size());
+        pool.take().takeInverse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void watermarkBelowDepthTest() {
+        new NoncePool(new PrivateKey(BigInteger.valueOf(23), BigInteger.valueOf(5), BigInteger.TEN), 4, 4);
+    }
+
+    private static BigInteger safePrime(Random random) {
+        BigInteger p;
+        do {
+            p = BigInteger.probablePrime(127, random).shiftLeft(1).add(BigInteger.ONE);
+        } while (!p.isProbablePrime(40));
+        return p;
+    }
+}
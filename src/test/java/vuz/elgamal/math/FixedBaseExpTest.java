@@ -0,0 +1,29 @@
+package vuz.elgamal.math;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class FixedBaseExpTest {
+
+    @Test
+    public void sameAsModPowTest() {
+        Random random = new Random(3);
+        BigInteger p = BigInteger.probablePrime(512, random);
+        BigInteger g = new BigInteger(511, random);
+
+        for (int window : new int[]{1, 4, 7}) {
+            FixedBaseExp powers = new FixedBaseExp(g, p, p.bitLength(), window);
+            for (int i = 0; i < 20; i++) {
+                BigInteger e = new BigInteger(random.nextInt(p.bitLength()) + 1, random);
+                assertEquals(g.modPow(e, p), powers.pow(e));
+            }
+            assertEquals(BigInteger.ONE, powers.pow(BigInteger.ZERO));
+            BigInteger big = BigInteger.ONE.shiftLeft(600).add(BigInteger.TEN);
+            assertEquals(g.modPow(big, p), powers.pow(big));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package vuz.elgamal.math;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ModInverseTest {
+
+    @Test
+    public void inverseTest() {
+        Random random = new Random(15);
+
+        for (int bits : new int[]{8, 64, 65, 512, 2048}) {
+            for (int i = 0; i < 200; i++) {
+                BigInteger n = new BigInteger(bits, random).max(BigInteger.TWO);
+                if (i % 2 == 0) {
+                    n = n.setBit(0);
+                }
+                BigInteger a = new BigInteger(bits, random).add(BigInteger.ONE);
+                if (a.gcd(n).equals(BigInteger.ONE)) {
+                    assertEquals(a.modInverse(n), ModInverse.inverse(a, n));
+                } else {
+                    assertNull(ModInverse.inverse(a, n));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nonceInverseModuloEvenTest() {
+        Random random = new Random(16);
+        BigInteger n = BigInteger.probablePrime(512, random).subtract(BigInteger.ONE);
+
+        for (int i = 0; i < 200; i++) {
+            BigInteger r = new BigInteger(511, random).add(BigInteger.ONE);
+            BigInteger inverse = ModInverse.inverse(r, n);
+            if (r.gcd(n).equals(BigInteger.ONE)) {
+                assertEquals(BigInteger.ONE, r.multiply(inverse).mod(n));
+            } else {
+                assertNull(inverse);
+            }
+        }
+    }
+}
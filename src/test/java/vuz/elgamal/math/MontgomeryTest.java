@@ -0,0 +1,30 @@
+package vuz.elgamal.math;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MontgomeryTest {
+
+    @Test
+    public void multiplyTest() {
+        Random random = new Random(5);
+
+        for (int bits : new int[]{61, 64, 512, 1000, 2048}) {
+            BigInteger n = BigInteger.probablePrime(bits, random);
+            Montgomery montgomery = new Montgomery(n);
+            long[] scratch = new long[montgomery.size() + 2];
+            long[] out = new long[montgomery.size()];
+
+            for (int i = 0; i < 50; i++) {
+                BigInteger a = new BigInteger(bits + 8, random);
+                BigInteger b = i == 0 ? n.subtract(BigInteger.ONE) : new BigInteger(bits - 1, random);
+                montgomery.multiply(montgomery.toMontgomery(a), montgomery.toMontgomery(b), out, scratch);
+                assertEquals(a.multiply(b).mod(n), montgomery.fromMontgomery(out));
+            }
+        }
+    }
+}
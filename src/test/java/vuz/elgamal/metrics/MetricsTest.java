@@ -0,0 +1,92 @@
+package vuz.elgamal.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.keys.PrivateKey;
+import vuz.elgamal.keys.PublicKey;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetricsTest {
+
+    private static final BigInteger P = BigInteger.valueOf(23);
+    private static final BigInteger G = BigInteger.valueOf(5);
+    private static final BigInteger X = BigInteger.valueOf(7);
+
+    private final DigitalSignature digitalSignature = new DigitalSignature();
+    private final PrivateKey privateKey = new PrivateKey(P, G, X);
+    private final PublicKey publicKey = new PublicKey(P, G, G.modPow(X, P));
+    private final InMemoryMetrics metrics = new InMemoryMetrics();
+
+    @Before
+    public void register() {
+        Metrics.register(metrics);
+    }
+
+    @After
+    public void unregister() {
+        Metrics.unregister(metrics);
+    }
+
+    @Test
+    public void signAndVerifyRecordPhasesTest() throws IOException, FileCorruptedOrFalsify {
+        Path file = Files.createTempFile("metrics", ".txt");
+        try {
+            Files.write(file, new byte[1000]);
+            byte[] signature = digitalSignature.createDetachedSign(file, privateKey);
+            digitalSignature.verifyDetachedSign(file, signature, publicKey);
+
+            byte[] digest = digitalSignature.hashFile(file);
+            digest[0] ^= 1;
+            try {
+                digitalSignature.verifyDigest(digest, signature, publicKey);
+                fail();
+            } catch (FileCorruptedOrFalsify expected) {
+                // another digest
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        assertEquals(3, metrics.getCount(Phase.HASH));
+        assertEquals(3000, metrics.getCount(Counter.BYTES_HASHED));
+        assertEquals(1, metrics.getCount(Phase.NONCE));
+        assertEquals(1, metrics.getCount(Counter.SIGNATURES));
+        assertEquals(2, metrics.getCount(Phase.EXPONENTIATION));
+        assertEquals(1, metrics.getCount(Counter.VERIFIED_VALID));
+        assertEquals(1, metrics.getCount(Counter.VERIFIED_INVALID));
+        assertTrue(metrics.getNanos(Phase.HASH) > 0);
+    }
+
+    @Test
+    public void phaseEmitsJfrEventTest() throws IOException {
+        Path dump = Files.createTempFile("metrics", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("vuz.elgamal.Phase");
+            recording.start();
+            digitalSignature.signDigest(new byte[32], privateKey);
+            recording.stop();
+            recording.dump(dump);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            assertTrue(events.stream().anyMatch(event -> "NONCE".equals(event.getString("phase"))));
+            assertTrue(events.stream().anyMatch(event -> !event.getDuration().isZero()));
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}
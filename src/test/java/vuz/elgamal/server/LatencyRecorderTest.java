@@ -0,0 +1,38 @@
+package vuz.elgamal.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void bucketBoundsTest() {
+        for (long value = 0; value < 100_000; value++) {
+            int bucket = LatencyRecorder.bucket(value);
+            assertTrue(value <= LatencyRecorder.upperBound(bucket));
+            assertTrue(bucket == 0 || value > LatencyRecorder.upperBound(bucket - 1));
+        }
+        assertTrue(Long.MAX_VALUE <= LatencyRecorder.upperBound(LatencyRecorder.bucket(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void percentileTest() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        assertEquals(0, recorder.percentile(50));
+
+        for (long i = 1; i <= 1000; i++) {
+            recorder.record(i * 1000);
+        }
+        assertEquals(1000, recorder.getCount());
+        assertEquals(1_000_000, recorder.getMax());
+        assertWithin(500_000, recorder.percentile(50));
+        assertWithin(990_000, recorder.percentile(99));
+        assertEquals(1_000_000, recorder.percentile(100));
+    }
+
+    private void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 5 / 4);
+    }
+}
@@ -0,0 +1,173 @@
+package vuz.elgamal.server;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import vuz.elgamal.DigitalSignature;
+import vuz.elgamal.exceptions.FileCorruptedOrFalsify;
+import vuz.elgamal.hash.Stribog256Digest;
+import vuz.elgamal.utils.BinaryUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SigningServerTest {
+
+    private static final String ELGAMAL_PUB = "elgamal.pub";
+    private static final String ELGAMAL = "elgamal";
+    private static final String TOKEN = "test-token";
+
+    private static final DigitalSignature digitalSignature = new DigitalSignature();
+    private static SigningServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException, FileCorruptedOrFalsify {
+        digitalSignature.generatePublicAndPrivateKeys();
+        server = new SigningServer(digitalSignature, digitalSignature.loadPrivateKey(ELGAMAL),
+            digitalSignature.loadPublicKey(ELGAMAL_PUB), 0, 4, TOKEN);
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void signAndVerifyBodyTest() throws IOException, FileCorruptedOrFalsify {
+        for (int size : new int[]{1000, 64 * 1024, 100_000}) {
+            byte[] message = new byte[size];
+            new Random(size).nextBytes(message);
+
+            Response sign = post("/sign", message, null, null);
+            assertEquals(200, sign.status);
+            assertEquals(200, post("/verify", message, null, sign.body).status);
+            digitalSignature.verifyDetachedSign(message, sign.body, digitalSignature.loadPublicKey(ELGAMAL_PUB));
+
+            message[0] ^= 1;
+            assertEquals(422, post("/verify", message, null, sign.body).status);
+        }
+    }
+
+    @Test
+    public void tokenRequiredTest() throws IOException {
+        assertEquals(401, post("/sign", new byte[]{1}, null, null, null).status);
+        assertEquals(401, post("/sign", new byte[]{1}, null, null, "Bearer wrong").status);
+        assertEquals(401, post("/metrics", new byte[0], null, null, TOKEN).status);
+    }
+
+    @Test
+    public void foreignHostRejectedTest() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String request = "POST /sign HTTP/1.1\r\nHost: rebound.example:" + server.getPort()
+                + "\r\nAuthorization: Bearer " + TOKEN + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+            assertTrue(response.startsWith("HTTP/1.1 403"));
+        }
+    }
+
+    @Test
+    public void loadTokenTest() throws IOException {
+        Path dir = Files.createTempDirectory("elgamal");
+        Path file = dir.resolve("token");
+        try {
+            String token = SigningServer.loadToken(file);
+            assertEquals(64, token.length());
+            assertEquals(token, SigningServer.loadToken(file));
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+            try {
+                SigningServer.loadToken(file);
+                fail();
+            } catch (IOException expected) {
+                // readable by other users
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void signAndVerifyDigestTest() throws IOException {
+        byte[] message = "digest only".getBytes();
+        Stribog256Digest digest = new Stribog256Digest();
+        digest.update(message, 0, message.length);
+        String hex = BinaryUtils.bytesToHexString(digest.digest());
+
+        Response sign = post("/sign", new byte[0], hex, null);
+        assertEquals(200, sign.status);
+        assertEquals(200, post("/verify", message, null, sign.body).status);
+        assertEquals(200, post("/verify", new byte[0], hex, sign.body).status);
+        assertEquals(400, post("/sign", new byte[0], "xyz", null).status);
+    }
+
+    @Test
+    public void metricsTest() throws IOException {
+        post("/sign", new byte[]{1, 2, 3}, null, null);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/metrics").openConnection();
+        connection.setRequestProperty("Authorization", "Bearer " + TOKEN);
+        String metrics = new String(read(connection));
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(metrics.startsWith("sign count="));
+        assertTrue(server.getSignLatency().getCount() > 0);
+    }
+
+    private static Response post(String path, byte[] body, String digest, byte[] signature) throws IOException {
+        return post(path, body, digest, signature, "Bearer " + TOKEN);
+    }
+
+    private static Response post(String path, byte[] body, String digest, byte[] signature, String authorization) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        if (authorization != null) {
+            connection.setRequestProperty("Authorization", authorization);
+        }
+        if (digest != null) {
+            connection.setRequestProperty(SigningServer.DIGEST_HEADER, digest);
+        }
+        if (signature != null) {
+            connection.setRequestProperty(SigningServer.SIGNATURE_HEADER, Base64.getEncoder().encodeToString(signature));
+        }
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        int status = connection.getResponseCode();
+        return new Response(status, read(connection));
+    }
+
+    private static byte[] read(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        try (InputStream stream = in) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private static class Response {
+
+        private final int status;
+        private final byte[] body;
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}